@@ -0,0 +1,79 @@
+package com.ineserver.maintenance;
+
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.node.matcher.NodeMatcher;
+import org.slf4j.Logger;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LuckPermsからadminグループのメンバーを事前に取得しておく
+// ログイン時、一覧にいるプレイヤーはユーザーデータの読み込みを待たずに許可する
+// 一覧は許可の省略にのみ使い、一覧にいないプレイヤーは通常の権限チェックに任せる（拒否には使わない）
+public class AdminAllowList {
+
+    private final Logger logger;
+    // 取得前、または破棄した後はnull
+    private volatile Snapshot snapshot;
+    // 取得の開始・一覧の破棄ごとに進める（それより前に始めた取得の結果は捨てる）
+    private final AtomicLong generation = new AtomicLong();
+
+    public AdminAllowList(Logger logger) {
+        this.logger = logger;
+    }
+
+    public CompletableFuture<Void> refresh(LuckPerms luckPerms) {
+        long started = generation.incrementAndGet();
+
+        return luckPerms.getUserManager().searchAll(NodeMatcher.key("group.admin"))
+                .thenApply(result -> new Snapshot(new HashSet<>(result.keySet())))
+                .handle((result, throwable) -> {
+                    if (throwable != null) {
+                        logger.error("Failed to prefetch admin allow list", throwable);
+                        return null;
+                    }
+                    // 取得中に破棄された、または新しい取得が始まった場合は古い結果で上書きしない
+                    synchronized (this) {
+                        if (generation.get() != started) {
+                            return null;
+                        }
+                        snapshot = result;
+                    }
+                    logger.info("Prefetched admin allow list (" + result.uuids.size() + " users)");
+                    return null;
+                });
+    }
+
+    public synchronized void clear() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    // 権限が変わったユーザーを再取得を待たずに一覧から外す
+    public synchronized void remove(UUID uuid) {
+        generation.incrementAndGet();
+        Snapshot current = snapshot;
+        if (current != null && current.uuids.contains(uuid)) {
+            Set<UUID> uuids = new HashSet<>(current.uuids);
+            uuids.remove(uuid);
+            snapshot = new Snapshot(uuids);
+        }
+    }
+
+    // 一覧にいる場合のみtrue（falseは「不明」であり、拒否の理由にはならない）
+    public boolean contains(UUID uuid) {
+        Snapshot current = snapshot;
+        return current != null && current.uuids.contains(uuid);
+    }
+
+    private static final class Snapshot {
+        private final Set<UUID> uuids;
+
+        private Snapshot(Set<UUID> uuids) {
+            this.uuids = uuids;
+        }
+    }
+}
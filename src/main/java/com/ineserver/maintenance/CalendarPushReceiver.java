@@ -0,0 +1,124 @@
+package com.ineserver.maintenance;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+// Googleカレンダーのプッシュ通知（events.watch）を受け取る軽量なHTTPサーバー
+// 通知の本文は空で、変更の有無はX-Goog-*ヘッダーのみで伝えられる
+// 登録済みのチャンネルIDとトークンが一致する通知だけを受け付ける
+public class CalendarPushReceiver {
+
+    // チャンネル作成直後に送られる確認用の通知（変更ではない）
+    private static final String STATE_SYNC = "sync";
+
+    private final String host;
+    private final int port;
+    private final String path;
+    private final Executor executor;
+    private final Logger logger;
+
+    // 受け付けるチャンネルID -> トークン（更新中は新旧のチャンネルが併存する）
+    private final Map<String, String> channels = new ConcurrentHashMap<>();
+    private final LongAdder receivedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private HttpServer server;
+    private Runnable onChange;
+
+    public CalendarPushReceiver(String host, int port, String path, Executor executor, Logger logger) {
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    // onChangeは受信用のスレッドで呼ばれるため、すぐに戻る処理にする
+    public void start(Runnable onChange) throws IOException {
+        this.onChange = onChange;
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext(path, this::handle);
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Calendar push receiver listening on " + host + ":" + getPort() + path);
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    public void addChannel(String channelId, String token) {
+        channels.put(channelId, token);
+    }
+
+    public void removeChannel(String channelId) {
+        channels.remove(channelId);
+    }
+
+    // ポート0を指定した場合は実際に割り当てられたポート
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+        }
+
+        if (!"POST".equals(exchange.getRequestMethod()) || !path.equals(exchange.getRequestURI().getPath())) {
+            respond(exchange, 404);
+            return;
+        }
+
+        String channelId = exchange.getRequestHeaders().getFirst("X-Goog-Channel-ID");
+        String token = exchange.getRequestHeaders().getFirst("X-Goog-Channel-Token");
+        String state = exchange.getRequestHeaders().getFirst("X-Goog-Resource-State");
+        String expectedToken = channelId != null ? channels.get(channelId) : null;
+        if (expectedToken == null || token == null || !MessageDigest.isEqual(
+                expectedToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            rejectedCount.increment();
+            logger.warn("Rejected calendar push notification (unknown channel or token): " + channelId);
+            respond(exchange, 403);
+            return;
+        }
+
+        // 先に応答を返してから処理する（Googleは応答が遅いと再送する）
+        respond(exchange, 200);
+        if (STATE_SYNC.equals(state)) {
+            logger.debug("Calendar push channel confirmed: " + channelId);
+            return;
+        }
+
+        receivedCount.increment();
+        logger.debug("Calendar push notification received (state: " + state + ", message: "
+                + exchange.getRequestHeaders().getFirst("X-Goog-Message-Number") + ")");
+        onChange.run();
+    }
+
+    private void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+}
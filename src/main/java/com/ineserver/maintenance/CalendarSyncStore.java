@@ -0,0 +1,135 @@
+package com.ineserver.maintenance;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Googleカレンダーの差分同期に必要な情報（syncTokenと取得済みイベントの写し）を保存する
+// 再起動後も全件取得をやり直さずに差分同期を続けられるようにする
+// syncTokenはカレンダーごとに発行されるため、保存時のカレンダーIDと異なる場合は読み込まない
+public class CalendarSyncStore {
+
+    private final Path file;
+    private final String calendarId;
+    private final Logger logger;
+
+    private String syncToken;
+    // 写しが保持しているイベントの開始時刻の上限（これ以降に開始するイベントは写しにない）
+    private long horizonMillis = Long.MAX_VALUE;
+    private final Map<String, MaintenanceEvent> events = new HashMap<>();
+
+    public CalendarSyncStore(Path dataDirectory, String fileName, String calendarId, Logger logger) {
+        this.file = dataDirectory.resolve(fileName);
+        this.calendarId = calendarId;
+        this.logger = logger;
+        load();
+    }
+
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    // 上限を設けていない場合はLong.MAX_VALUE
+    public long getHorizonMillis() {
+        return horizonMillis;
+    }
+
+    public Map<String, MaintenanceEvent> getEvents() {
+        return new HashMap<>(events);
+    }
+
+    public void save(String syncToken, long horizonMillis, Collection<MaintenanceEvent> mirror) {
+        this.syncToken = syncToken;
+        this.horizonMillis = horizonMillis;
+        this.events.clear();
+        for (MaintenanceEvent event : mirror) {
+            this.events.put(event.getId(), event);
+        }
+
+        JsonObject root = new JsonObject();
+        root.addProperty("calendarId", calendarId);
+        if (syncToken != null) {
+            root.addProperty("syncToken", syncToken);
+        }
+        if (horizonMillis != Long.MAX_VALUE) {
+            root.addProperty("horizon", horizonMillis);
+        }
+        JsonArray array = new JsonArray();
+        for (MaintenanceEvent event : mirror) {
+            JsonObject data = new JsonObject();
+            data.addProperty("id", event.getId());
+            data.addProperty("title", event.getTitle());
+            data.addProperty("description", event.getDescription());
+            data.addProperty("start", event.getStartTime().toString());
+            data.addProperty("end", event.getEndTime().toString());
+            array.add(data);
+        }
+        root.add("events", array);
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temporary, root.toString(), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to save calendar sync state", e);
+        }
+    }
+
+    // 次回は全件取得からやり直す
+    public void clear() {
+        syncToken = null;
+        horizonMillis = Long.MAX_VALUE;
+        events.clear();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.error("Failed to delete calendar sync state", e);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try {
+            JsonObject root = JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8))
+                    .getAsJsonObject();
+            // 以前のバージョンで保存したファイルにはカレンダーIDがない
+            if (root.has("calendarId") && !calendarId.equals(root.get("calendarId").getAsString())) {
+                logger.info("Calendar sync state belongs to another calendar; performing a full sync of " + calendarId);
+                return;
+            }
+            syncToken = root.has("syncToken") ? root.get("syncToken").getAsString() : null;
+            horizonMillis = root.has("horizon") ? root.get("horizon").getAsLong() : Long.MAX_VALUE;
+            for (JsonElement element : root.getAsJsonArray("events")) {
+                JsonObject data = element.getAsJsonObject();
+                MaintenanceEvent event = new MaintenanceEvent(
+                        data.get("id").getAsString(),
+                        data.get("title").getAsString(),
+                        data.get("description").getAsString(),
+                        Instant.parse(data.get("start").getAsString()),
+                        Instant.parse(data.get("end").getAsString()));
+                events.put(event.getId(), event);
+            }
+            logger.info("Calendar sync state loaded for " + calendarId + " (" + events.size() + " events)");
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to load calendar sync state; performing a full sync", e);
+            syncToken = null;
+            horizonMillis = Long.MAX_VALUE;
+            events.clear();
+        }
+    }
+}
@@ -20,6 +20,9 @@ public class ConfigManager {
     private final Logger logger;
     private Map<String, Object> config;
 
+    private static final String DEFAULT_CALENDAR_URL =
+            "https://calendar.google.com/calendar/u/0?cid=dnFobnRpa2FsOXU1OWE1Ym1hOWphdmNjcWdAZ3JvdXAuY2FsZW5kYXIuZ29vZ2xlLmNvbQ";
+
     public ConfigManager(Path dataDirectory, Logger logger) {
         this.dataDirectory = dataDirectory;
         this.logger = logger;
@@ -59,16 +62,85 @@ public class ConfigManager {
         config.append("  # カレンダーID\n");
         config.append("  # 例: \"abcd1234@group.calendar.google.com\"\n");
         config.append("  calendar-id: primary\n");
-        config.append("  # カレンダーチェック間隔（分）\n");
-        config.append("  check-interval-minutes: 1\n");
+        config.append("  # 追加で取得するカレンダーID（並行して取得し、1つの予定に統合する）\n");
+        config.append("  # 同じイベントが複数のカレンダーにある場合は calendar-id、続いてこの一覧の記載順に優先する\n");
+        config.append("  additional-calendar-ids: []\n");
+        config.append("  # カレンダーチェック間隔の上限（分）\n");
+        config.append("  # 直近にメンテナンスがない場合はこの間隔でチェックし、開始・終了が近づくにつれて短くする\n");
+        config.append("  check-interval-minutes: 30\n");
+        config.append("  # チェック間隔の調整\n");
+        config.append("  polling:\n");
+        config.append("    # メンテナンスの開始・終了が近づいたときの最短間隔（秒）\n");
+        config.append("    min-interval-seconds: 30\n");
+        config.append("    # 取得に失敗したときに間隔を延ばす上限（分）\n");
+        config.append("    max-backoff-minutes: 30\n");
+        config.append("    # この回数連続で失敗したら予定が古い可能性があるものとして扱う\n");
+        config.append("    stale-after-failures: 3\n");
+        config.append("  # 変更通知（プッシュ）の設定\n");
+        config.append("  # 有効にすると変更時にすぐ取得し、定期チェックは通知の取りこぼし対策として上限の間隔でのみ行う\n");
+        config.append("  push:\n");
+        config.append("    enabled: false\n");
+        config.append("    # Googleから通知を送るHTTPSのURL（このプロキシの受信口へ転送されるもの）\n");
+        config.append("    callback-url: \"\"\n");
+        config.append("    # 受信口の待ち受けアドレス・ポート・パス\n");
+        config.append("    bind-address: 0.0.0.0\n");
+        config.append("    port: 8085\n");
+        config.append("    path: /calendar/notify\n");
+        config.append("    # 通知チャンネルの有効期間（時間）\n");
+        config.append("    channel-ttl-hours: 24\n");
+        config.append("    # 期限のこの分数前にチャンネルを更新する\n");
+        config.append("    renew-before-minutes: 10\n");
+        config.append("  # 取得するイベントの絞り込み（空の場合は絞り込まない）\n");
+        config.append("  # 絞り込みを設定すると差分同期は使えず、毎回30日分を取得する\n");
+        config.append("  filter:\n");
+        config.append("    # タイトルや説明に含まれるキーワード\n");
+        config.append("    keyword: \"\"\n");
+        config.append("    # 非公開の拡張プロパティ（例: \"maintenance=true\"）\n");
+        config.append("    private-property: \"\"\n");
         config.append("\n");
         
+        config.append("# ICS（iCalendar）ファイルからのメンテナンス予定の読み込み\n");
+        config.append("ics:\n");
+        config.append("  enabled: false\n");
+        config.append("  # データフォルダ内のファイル（変更を検知して自動的に読み込み直す）\n");
+        config.append("  file: maintenance.ics\n");
+        config.append("  # URLから読み込む場合に指定（fileより優先）\n");
+        config.append("  url: \"\"\n");
+        config.append("  # URLの再取得間隔（分）\n");
+        config.append("  url-refresh-minutes: 5\n");
+        config.append("\n");
+
         config.append("# Discord通知設定\n");
         config.append("discord:\n");
         config.append("  # DiscordのWebhook URL\n");
         config.append("  webhook-url: https://discord.com/api/webhooks/YOUR_WEBHOOK_ID/YOUR_WEBHOOK_TOKEN\n");
         config.append("  # Discord通知の有効/無効\n");
         config.append("  enabled: true\n");
+        config.append("  # 送信キューの設定\n");
+        config.append("  queue:\n");
+        config.append("    # 送信待ちにできる通知の最大数（超えた分は破棄）\n");
+        config.append("    capacity: 100\n");
+        config.append("    # 通信エラー・5xx応答時の最大再送回数\n");
+        config.append("    max-retries: 5\n");
+        config.append("  # イベントごとに1つのメッセージを投稿し、予定の変更・開始・終了時はそのメッセージを編集する\n");
+        config.append("  # 無効にすると状態変化ごとに新しいメッセージを投稿する（複数の通知を1メッセージにまとめて送信）\n");
+        config.append("  edit-in-place: true\n");
+        config.append("  # この秒数以内の連続した変更は1回の投稿・編集にまとめる\n");
+        config.append("  edit-debounce-seconds: 5\n");
+        config.append("  # 同じ内容を送信する追加のWebhook URL\n");
+        config.append("  additional-webhook-urls: []\n");
+        config.append("  # 通知に載せるカレンダーのURL（空にするとリンクを載せない）\n");
+        config.append("  calendar-url: " + DEFAULT_CALENDAR_URL + "\n");
+        config.append("\n");
+        config.append("# Discord以外の通知先\n");
+        config.append("notifiers:\n");
+        config.append("  # 任意のHTTPエンドポイントへJSONをPOSTする\n");
+        config.append("  http:\n");
+        config.append("    enabled: false\n");
+        config.append("    url: https://example.com/maintenance-webhook\n");
+        config.append("  # プロキシのログに出力する\n");
+        config.append("  log:\n");
+        config.append("    enabled: false\n");
         config.append("\n");
         
         config.append("# メンテナンス設定\n");
@@ -77,8 +149,74 @@ public class ConfigManager {
         config.append("  kick-message: |-\n");
         config.append("    §c§lサーバーメンテナンス中です\n");
         config.append("    §e終了までお待ちください\n");
+        config.append("  # 接続可否判定のキャッシュ設定\n");
+        config.append("  permission-cache:\n");
+        config.append("    # キャッシュする最大プレイヤー数\n");
+        config.append("    max-size: 1000\n");
+        config.append("    # キャッシュの有効期間（秒）\n");
+        config.append("    ttl-seconds: 300\n");
+        config.append("  # ログイン時の権限チェック設定\n");
+        config.append("  login-check:\n");
+        config.append("    # LuckPermsのユーザーデータ読み込みを待つ最大時間（ミリ秒）\n");
+        config.append("    timeout-millis: 3000\n");
+        config.append("    # タイムアウト・エラー時の扱い（allow: 接続を許可 / deny: 接続を拒否）\n");
+        config.append("    fallback: deny\n");
+        config.append("  # adminグループのメンバー一覧の事前取得設定\n");
+        config.append("  # メンテナンス開始時に一覧を取得し、一覧にいるプレイヤーはログイン時のユーザーデータ読み込みを省略します\n");
+        config.append("  # （一覧にいないプレイヤーも拒否はせず、通常どおり権限チェックを行います）\n");
+        config.append("  pre-login-check:\n");
+        config.append("    # 有効/無効\n");
+        config.append("    enabled: false\n");
+        config.append("    # adminグループのメンバー一覧を再取得する間隔（分）\n");
+        config.append("    refresh-minutes: 5\n");
+        config.append("  # メンテナンス中のサーバーリストPingの制限\n");
+        config.append("  # 制限を超えたアドレスにはアイコンとMOTDを含まない最小限の応答を返します\n");
+        config.append("  ping-limit:\n");
+        config.append("    # 有効/無効\n");
+        config.append("    enabled: false\n");
+        config.append("    # 1アドレスあたりの1秒間の許容Ping数\n");
+        config.append("    rate-per-second: 1.0\n");
+        config.append("    # 連続して許容するPing数\n");
+        config.append("    burst: 5\n");
+        config.append("    # 記録する最大アドレス数\n");
+        config.append("    max-addresses: 4096\n");
+        config.append("    # このアドレスを記録から外すまでの無通信時間（秒）\n");
+        config.append("    idle-seconds: 60\n");
+        config.append("  # メンテナンス開始時のプレイヤー切断設定\n");
+        config.append("  eviction:\n");
+        config.append("    # immediate: 一斉に切断 / staged: 一定間隔ごとに分けて切断\n");
+        config.append("    mode: immediate\n");
+        config.append("    # 1回あたりに切断する人数（staged時）\n");
+        config.append("    batch-size: 50\n");
+        config.append("    # 切断の間隔（ミリ秒、staged時）\n");
+        config.append("    interval-millis: 1000\n");
+        config.append("    # 切断順（none / longest-online: 接続時間の長い順 / newest-first: 接続時間の短い順）\n");
+        config.append("    order: none\n");
         config.append("\n");
         
+        config.append("# メッセージ設定\n");
+        config.append("# 使用可能なプレースホルダー: {title} {description} {start} {end} {remaining}\n");
+        config.append("messages:\n");
+        config.append("  # メンテナンス開始前の通知\n");
+        config.append("  notification: |-\n");
+        config.append("    §e§l[メンテナンス通知]\n");
+        config.append("    §f{remaining}後にメンテナンスが開始されます。\n");
+        config.append("    §7タイトル: §f{title}\n");
+        config.append("    §7開始時刻: §f{start}\n");
+        config.append("  # ログイン時の通知\n");
+        config.append("  login-notification: |-\n");
+        config.append("    §e§l[メンテナンスのお知らせ]\n");
+        config.append("    §f{remaining}後にメンテナンスが予定されています。\n");
+        config.append("    §7タイトル: §f{title}\n");
+        config.append("    §7開始時刻: §f{start}\n");
+        config.append("  # メンテナンス中のサーバーリスト表示（MOTD）\n");
+        config.append("  ping-motd: |-\n");
+        config.append("    §c§l現在メンテナンス中です\n");
+        config.append("    §7しばらくお待ちください\n");
+        config.append("  # メンテナンス中のバージョン表記\n");
+        config.append("  ping-version: メンテナンス\n");
+        config.append("\n");
+
         config.append("# 通知設定\n");
         config.append("notifications:\n");
         config.append("  # ログイン時のメンテナンス通知を有効化\n");
@@ -120,10 +258,80 @@ public class ConfigManager {
         return getString("google-calendar.calendar-id", "primary");
     }
 
+    // calendar-idに加えて取得するカレンダー（calendar-idが最優先で、以降は記載順）
+    public List<String> getGoogleCalendarAdditionalIds() {
+        return getStringList("google-calendar.additional-calendar-ids");
+    }
+
     public int getGoogleCalendarCheckInterval() {
         return getInt("google-calendar.check-interval-minutes", 30);
     }
 
+    public int getGoogleCalendarMinIntervalSeconds() {
+        return getInt("google-calendar.polling.min-interval-seconds", 30);
+    }
+
+    public int getGoogleCalendarMaxBackoffMinutes() {
+        return getInt("google-calendar.polling.max-backoff-minutes", 30);
+    }
+
+    public int getGoogleCalendarStaleAfterFailures() {
+        return getInt("google-calendar.polling.stale-after-failures", 3);
+    }
+
+    public boolean isGoogleCalendarPushEnabled() {
+        return getBoolean("google-calendar.push.enabled", false);
+    }
+
+    public String getGoogleCalendarPushCallbackUrl() {
+        return getString("google-calendar.push.callback-url", "");
+    }
+
+    public String getGoogleCalendarPushBindAddress() {
+        return getString("google-calendar.push.bind-address", "0.0.0.0");
+    }
+
+    public int getGoogleCalendarPushPort() {
+        return getInt("google-calendar.push.port", 8085);
+    }
+
+    public String getGoogleCalendarPushPath() {
+        return getString("google-calendar.push.path", "/calendar/notify");
+    }
+
+    public int getGoogleCalendarPushChannelTtlHours() {
+        return getInt("google-calendar.push.channel-ttl-hours", 24);
+    }
+
+    public int getGoogleCalendarPushRenewBeforeMinutes() {
+        return getInt("google-calendar.push.renew-before-minutes", 10);
+    }
+
+    public String getGoogleCalendarFilterKeyword() {
+        return getString("google-calendar.filter.keyword", "");
+    }
+
+    public String getGoogleCalendarFilterProperty() {
+        return getString("google-calendar.filter.private-property", "");
+    }
+
+    public boolean isIcsEnabled() {
+        return getBoolean("ics.enabled", false);
+    }
+
+    // データフォルダからの相対パス
+    public String getIcsFile() {
+        return getString("ics.file", "maintenance.ics");
+    }
+
+    public String getIcsUrl() {
+        return getString("ics.url", "");
+    }
+
+    public int getIcsUrlRefreshMinutes() {
+        return getInt("ics.url-refresh-minutes", 5);
+    }
+
     public String getDiscordWebhookUrl() {
         return getString("discord.webhook-url", "");
     }
@@ -132,10 +340,134 @@ public class ConfigManager {
         return getBoolean("discord.enabled", true);
     }
 
+    public int getDiscordQueueCapacity() {
+        return getInt("discord.queue.capacity", 100);
+    }
+
+    public int getDiscordMaxRetries() {
+        return getInt("discord.queue.max-retries", 5);
+    }
+
+    public List<String> getDiscordAdditionalWebhookUrls() {
+        return getStringList("discord.additional-webhook-urls");
+    }
+
+    public String getDiscordCalendarUrl() {
+        return getString("discord.calendar-url", DEFAULT_CALENDAR_URL);
+    }
+
+    public boolean isHttpNotifierEnabled() {
+        return getBoolean("notifiers.http.enabled", false);
+    }
+
+    public String getHttpNotifierUrl() {
+        return getString("notifiers.http.url", "");
+    }
+
+    public boolean isLogNotifierEnabled() {
+        return getBoolean("notifiers.log.enabled", false);
+    }
+
+    public boolean isDiscordEditInPlace() {
+        return getBoolean("discord.edit-in-place", true);
+    }
+
+    public int getDiscordEditDebounceSeconds() {
+        return getInt("discord.edit-debounce-seconds", 5);
+    }
+
     public String getKickMessage() {
         return getString("maintenance.kick-message", "§cサーバーメンテナンス中です。");
     }
 
+    public int getPermissionCacheMaxSize() {
+        return getInt("maintenance.permission-cache.max-size", 1000);
+    }
+
+    public int getPermissionCacheTtlSeconds() {
+        return getInt("maintenance.permission-cache.ttl-seconds", 300);
+    }
+
+    public int getLoginCheckTimeoutMillis() {
+        return getInt("maintenance.login-check.timeout-millis", 3000);
+    }
+
+    public boolean isLoginCheckFallbackAllow() {
+        return getString("maintenance.login-check.fallback", "deny").equalsIgnoreCase("allow");
+    }
+
+    public String getNotificationMessage() {
+        return getString("messages.notification",
+                "§e§l[メンテナンス通知]\n" +
+                        "§f{remaining}後にメンテナンスが開始されます。\n" +
+                        "§7タイトル: §f{title}\n" +
+                        "§7開始時刻: §f{start}");
+    }
+
+    public String getLoginNotificationMessage() {
+        return getString("messages.login-notification",
+                "§e§l[メンテナンスのお知らせ]\n" +
+                        "§f{remaining}後にメンテナンスが予定されています。\n" +
+                        "§7タイトル: §f{title}\n" +
+                        "§7開始時刻: §f{start}");
+    }
+
+    public String getPingMotdMessage() {
+        return getString("messages.ping-motd", "§c§l現在メンテナンス中です\n§7しばらくお待ちください");
+    }
+
+    public String getPingVersionMessage() {
+        return getString("messages.ping-version", "メンテナンス");
+    }
+
+    public String getDiscordMessage(String kind, String defaultValue) {
+        return getString("discord.messages." + kind, defaultValue);
+    }
+
+    public boolean isPreLoginCheckEnabled() {
+        return getBoolean("maintenance.pre-login-check.enabled", false);
+    }
+
+    public int getPreLoginRefreshMinutes() {
+        return getInt("maintenance.pre-login-check.refresh-minutes", 5);
+    }
+
+    public boolean isPingLimitEnabled() {
+        return getBoolean("maintenance.ping-limit.enabled", false);
+    }
+
+    public double getPingLimitRatePerSecond() {
+        return getDouble("maintenance.ping-limit.rate-per-second", 1.0);
+    }
+
+    public double getPingLimitBurst() {
+        return getDouble("maintenance.ping-limit.burst", 5.0);
+    }
+
+    public int getPingLimitMaxAddresses() {
+        return getInt("maintenance.ping-limit.max-addresses", 4096);
+    }
+
+    public int getPingLimitIdleSeconds() {
+        return getInt("maintenance.ping-limit.idle-seconds", 60);
+    }
+
+    public boolean isStagedEvictionEnabled() {
+        return getString("maintenance.eviction.mode", "immediate").equalsIgnoreCase("staged");
+    }
+
+    public int getEvictionBatchSize() {
+        return getInt("maintenance.eviction.batch-size", 50);
+    }
+
+    public int getEvictionIntervalMillis() {
+        return getInt("maintenance.eviction.interval-millis", 1000);
+    }
+
+    public String getEvictionOrder() {
+        return getString("maintenance.eviction.order", "none");
+    }
+
     public boolean isLoginNotificationEnabled() {
         return getBoolean("notifications.login-notification", true);
     }
@@ -173,6 +505,19 @@ public class ConfigManager {
         return value != null ? value.toString() : defaultValue;
     }
 
+    private List<String> getStringList(String path) {
+        List<String> result = new ArrayList<>();
+        Object value = getConfigValue(path);
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                if (element != null && !element.toString().isEmpty()) {
+                    result.add(element.toString());
+                }
+            }
+        }
+        return result;
+    }
+
     private int getInt(String path, int defaultValue) {
         Object value = getConfigValue(path);
         if (value instanceof Number) {
@@ -181,6 +526,14 @@ public class ConfigManager {
         return defaultValue;
     }
 
+    private double getDouble(String path, double defaultValue) {
+        Object value = getConfigValue(path);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return defaultValue;
+    }
+
     private boolean getBoolean(String path, boolean defaultValue) {
         Object value = getConfigValue(path);
         if (value instanceof Boolean) {
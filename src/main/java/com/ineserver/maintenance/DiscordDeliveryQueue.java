@@ -0,0 +1,521 @@
+package com.ineserver.maintenance;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Discord Webhookへの送信キュー
+// 呼び出し元はEmbedを積むだけで戻り、送信はI/O用の実行器でまとめて行う
+// 1メッセージ最大10件のEmbedをまとめて送り、429やX-RateLimit-*ヘッダーに従って送信を遅らせる
+// 送信が完了した通知は送信箱でackし、完了しなかった通知は次回起動時に再送される
+// 編集モードではイベントごとに1つのメッセージを投稿し、以降の状態変化はそのメッセージを編集する
+// （短時間の連続した変更は1回の編集にまとめる。この場合はバッチ送信を行わない）
+public class DiscordDeliveryQueue {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    // Discordの1メッセージあたりの上限
+    private static final int MAX_EMBEDS_PER_MESSAGE = 10;
+    private static final int MAX_CHARACTERS_PER_MESSAGE = 6000;
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    private final OkHttpClient httpClient;
+    private final String webhookUrl;
+    private final PluginExecutors executors;
+    private final NotificationOutbox outbox;
+    private final DiscordMessageStore messageStore;
+    private final Clock clock;
+    private final Logger logger;
+    private final BlockingQueue<Delivery> queue;
+    private final int maxRetries;
+    private final boolean editInPlace;
+    private final long debounceMillis;
+    // 変更をまとめるために待機中の通知（イベントIDごと）
+    private final Map<String, Delivery> debouncing = new HashMap<>();
+
+    // 送信処理が予約済みかどうか（多重に予約しない）
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Object sendLock = new Object();
+
+    // 送信に失敗して再送待ちのバッチ（更新はsendLock内で行う）
+    private volatile List<Delivery> pendingBatch;
+    private int attempts;
+    // レート制限により次に送信できる時刻
+    private long nextAllowedAt;
+
+    private final LongAdder sentEmbeds = new LongAdder();
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder droppedEmbeds = new LongAdder();
+    private final LongAdder editedMessages = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+
+    public DiscordDeliveryQueue(OkHttpClient httpClient, String webhookUrl, ConfigManager configManager,
+            PluginExecutors executors, NotificationOutbox outbox, DiscordMessageStore messageStore, Clock clock,
+            Logger logger) {
+        this.httpClient = httpClient;
+        this.webhookUrl = webhookUrl;
+        this.executors = executors;
+        this.outbox = outbox;
+        this.messageStore = messageStore;
+        this.clock = clock;
+        this.logger = logger;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, configManager.getDiscordQueueCapacity()));
+        this.maxRetries = Math.max(0, configManager.getDiscordMaxRetries());
+        this.editInPlace = configManager.isDiscordEditInPlace();
+        this.debounceMillis = TimeUnit.SECONDS.toMillis(Math.max(0, configManager.getDiscordEditDebounceSeconds()));
+    }
+
+    // キューが一杯の場合はfalseを返す（送信箱に残るため次回起動時に再送される）
+    public boolean enqueue(String key, JsonObject embed) {
+        if (!editInPlace) {
+            return offer(new Delivery(null, key, embed));
+        }
+
+        String eventId = NotificationOutbox.eventIdOf(key);
+        synchronized (debouncing) {
+            Delivery waiting = debouncing.get(eventId);
+            if (waiting != null) {
+                // 待機中の通知を最新の内容で置き換える
+                waiting.coalesce(key, embed);
+                coalesced.increment();
+                return true;
+            }
+
+            Delivery delivery = new Delivery(eventId, key, embed);
+            debouncing.put(eventId, delivery);
+            try {
+                executors.getTimers().schedule(() -> release(eventId), debounceMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                debouncing.remove(eventId);
+                return offer(delivery);
+            }
+        }
+        return true;
+    }
+
+    private void release(String eventId) {
+        Delivery delivery;
+        synchronized (debouncing) {
+            delivery = debouncing.remove(eventId);
+        }
+        if (delivery != null) {
+            offer(delivery);
+        }
+    }
+
+    private boolean offer(Delivery delivery) {
+        if (!queue.offer(delivery)) {
+            droppedEmbeds.add(delivery.keys.size());
+            logger.warn("Discord delivery queue is full; deferred notification until restart: " + delivery.keys);
+            return false;
+        }
+        scheduleDrain(0);
+        return true;
+    }
+
+    private void scheduleDrain(long delayMillis) {
+        if (!drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executors.getTimers().schedule(() -> executors.getIo().execute(this::drain),
+                    delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 停止処理中（残りはflushで送信するか、次回起動時に再送される）
+            drainScheduled.set(false);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        while (true) {
+            long delay = sendNext();
+            if (delay < 0) {
+                return;
+            }
+            if (delay > 0) {
+                scheduleDrain(delay);
+                return;
+            }
+        }
+    }
+
+    // 1メッセージ分を送信する
+    // 戻り値: 0 = 続けて送信可能 / 正 = 次に送信できるまでの待ち時間（ミリ秒）/ -1 = 送信するものがない
+    private long sendNext() {
+        synchronized (sendLock) {
+            long now = clock.millis();
+            if (now < nextAllowedAt) {
+                return nextAllowedAt - now;
+            }
+
+            if (pendingBatch == null) {
+                pendingBatch = takeBatch();
+                attempts = 0;
+                if (pendingBatch.isEmpty()) {
+                    pendingBatch = null;
+                    return -1;
+                }
+            }
+
+            long result = post(pendingBatch);
+            if (result <= 0) {
+                if (result == 0) {
+                    outbox.acknowledge(keys(pendingBatch));
+                }
+                pendingBatch = null;
+                return queue.isEmpty() ? -1 : Math.max(0, nextAllowedAt - clock.millis());
+            }
+            return result;
+        }
+    }
+
+    private List<Delivery> takeBatch() {
+        List<Delivery> batch = new ArrayList<>(MAX_EMBEDS_PER_MESSAGE);
+        if (editInPlace) {
+            // メッセージはイベントごとに分けるため1件ずつ送信する
+            Delivery next = queue.poll();
+            if (next != null) {
+                batch.add(next);
+            }
+            return batch;
+        }
+
+        int characters = 0;
+        Delivery next;
+        while (batch.size() < MAX_EMBEDS_PER_MESSAGE && (next = queue.peek()) != null) {
+            int length = embedLength(next.embed);
+            if (!batch.isEmpty() && characters + length > MAX_CHARACTERS_PER_MESSAGE) {
+                break;
+            }
+            batch.add(queue.poll());
+            characters += length;
+        }
+        return batch;
+    }
+
+    private static List<String> keys(List<Delivery> batch) {
+        List<String> keys = new ArrayList<>(batch.size());
+        for (Delivery delivery : batch) {
+            keys.addAll(delivery.keys);
+        }
+        return keys;
+    }
+
+    private static int embedLength(JsonObject embed) {
+        int length = 0;
+        for (String key : new String[]{"title", "description"}) {
+            JsonElement element = embed.get(key);
+            if (element != null) {
+                length += element.getAsString().length();
+            }
+        }
+        return length;
+    }
+
+    // 送信結果: 0 = 完了（成功または再送しても成功しないため破棄）/ 正 = 再送までの待ち時間（ミリ秒）/ -1 = 再送を断念
+    private long post(List<Delivery> batch) {
+        if (webhookUrl == null || webhookUrl.isEmpty()) {
+            logger.warn("Discord webhook URL is not configured");
+            droppedEmbeds.add(batch.size());
+            return 0;
+        }
+
+        JsonArray embeds = new JsonArray();
+        for (Delivery delivery : batch) {
+            embeds.add(delivery.embed);
+        }
+        JsonObject payload = new JsonObject();
+        payload.add("embeds", embeds);
+        RequestBody body = RequestBody.create(payload.toString(), JSON);
+
+        // 編集モードでは投稿済みのメッセージがあれば編集し、無ければ投稿してIDを受け取る
+        String eventId = batch.get(0).eventId;
+        String messageId = eventId != null ? messageStore.get(eventId) : null;
+        HttpUrl parsedUrl = HttpUrl.parse(webhookUrl);
+        if (parsedUrl == null) {
+            logger.error("Discord webhook URL is invalid: " + webhookUrl);
+            droppedEmbeds.add(batch.size());
+            return 0;
+        }
+        HttpUrl.Builder url = parsedUrl.newBuilder();
+        Request.Builder request = new Request.Builder();
+        if (messageId != null) {
+            request.url(url.addPathSegment("messages").addPathSegment(messageId).build()).patch(body);
+        } else if (eventId != null) {
+            request.url(url.addQueryParameter("wait", "true").build()).post(body);
+        } else {
+            request.url(webhookUrl).post(body);
+        }
+
+        long startedAt = System.nanoTime();
+        try (Response response = httpClient.newCall(request.build()).execute()) {
+            recordLatency(System.nanoTime() - startedAt);
+            updateRateLimit(response);
+
+            if (response.isSuccessful()) {
+                if (messageId != null) {
+                    editedMessages.increment();
+                } else {
+                    sentMessages.increment();
+                }
+                sentEmbeds.add(batch.size());
+                if (eventId != null) {
+                    rememberMessage(batch.get(0), messageId, response);
+                }
+                logger.info("Discord notification " + (messageId != null ? "edited" : "sent")
+                        + " successfully (" + batch.size() + " embeds)");
+                return 0;
+            }
+
+            if (messageId != null && response.code() == 404) {
+                // メッセージが削除されていた場合は新しく投稿し直す
+                logger.warn("Discord message " + messageId + " no longer exists; posting a new one");
+                messageStore.remove(eventId);
+                return 1;
+            }
+
+            if (response.code() == 429) {
+                rateLimited.increment();
+                long retryAfter = retryAfterMillis(response);
+                nextAllowedAt = Math.max(nextAllowedAt, clock.millis() + retryAfter);
+                logger.warn("Discord webhook rate limited; retrying in " + retryAfter + "ms");
+                return retryAfter;
+            }
+
+            if (response.code() >= 500) {
+                return retryOrDrop(batch, "status " + response.code());
+            }
+
+            // その他の4xxは再送しても成功しないため破棄
+            logger.error("Failed to send Discord notification. Status: " + response.code());
+            droppedEmbeds.add(batch.size());
+            return 0;
+        } catch (IOException e) {
+            recordLatency(System.nanoTime() - startedAt);
+            return retryOrDrop(batch, e.getMessage());
+        }
+    }
+
+    // 投稿したメッセージのIDを保存する（終了・キャンセル後は以降の編集が無いため破棄）
+    private void rememberMessage(Delivery delivery, String messageId, Response response) {
+        String kind = NotificationOutbox.kindOf(delivery.keys.get(delivery.keys.size() - 1));
+        if ("ended".equals(kind) || "cancelled".equals(kind)) {
+            messageStore.remove(delivery.eventId);
+            return;
+        }
+        if (messageId != null) {
+            return;
+        }
+
+        try {
+            ResponseBody body = response.body();
+            JsonObject message = JsonParser.parseString(body.string()).getAsJsonObject();
+            messageStore.put(delivery.eventId, message.get("id").getAsString());
+        } catch (IOException | RuntimeException e) {
+            // 送信自体は成功しているため再送はしない
+            logger.warn("Discord response did not contain a message ID; the next change will be posted as a new message");
+        }
+    }
+
+    private long retryOrDrop(List<Delivery> batch, String reason) {
+        attempts++;
+        if (attempts > maxRetries) {
+            // 送信箱には残し、次回起動時に再送する
+            logger.error("Giving up Discord notification after " + attempts + " attempts until restart: " + reason);
+            droppedEmbeds.add(batch.size());
+            return -1;
+        }
+
+        retries.increment();
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << (attempts - 1));
+        logger.warn("Error sending Discord notification (" + reason + "); retrying in " + backoff + "ms");
+        return backoff;
+    }
+
+    // 残り回数が0になったらリセットまで送信を止める
+    private void updateRateLimit(Response response) {
+        String remaining = response.header("X-RateLimit-Remaining");
+        String resetAfter = response.header("X-RateLimit-Reset-After");
+        if (remaining == null || resetAfter == null) {
+            return;
+        }
+        try {
+            if (Integer.parseInt(remaining.trim()) <= 0) {
+                long wait = (long) Math.ceil(Double.parseDouble(resetAfter.trim()) * 1000);
+                nextAllowedAt = Math.max(nextAllowedAt, clock.millis() + wait);
+            }
+        } catch (NumberFormatException ignored) {
+            // 不正なヘッダーは無視
+        }
+    }
+
+    // Retry-Afterヘッダー（秒）またはレスポンスのretry_after（秒）を優先し、無ければ1秒待つ
+    private long retryAfterMillis(Response response) {
+        String header = response.header("Retry-After");
+        if (header != null) {
+            try {
+                return Math.max(1, (long) Math.ceil(Double.parseDouble(header.trim()) * 1000));
+            } catch (NumberFormatException ignored) {
+                // 本文を確認する
+            }
+        }
+        try {
+            ResponseBody body = response.body();
+            if (body != null) {
+                JsonObject json = JsonParser.parseString(body.string()).getAsJsonObject();
+                if (json.has("retry_after")) {
+                    return Math.max(1, (long) Math.ceil(json.get("retry_after").getAsDouble() * 1000));
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // 既定値を使用
+        }
+        return INITIAL_BACKOFF_MILLIS;
+    }
+
+    private void recordLatency(long nanos) {
+        requests.increment();
+        sendNanos.add(nanos);
+        maxSendNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // 期限までに送れるだけ送信する（停止時に使用）
+    // 送信できなかった通知の件数を返す（送信箱に残り、次回起動時に再送される）
+    public int flush(long timeout, TimeUnit unit) {
+        long deadline = clock.millis() + unit.toMillis(timeout);
+
+        // 変更待ちの通知も直ちに送信対象にする
+        List<String> waiting;
+        synchronized (debouncing) {
+            waiting = new ArrayList<>(debouncing.keySet());
+        }
+        for (String eventId : waiting) {
+            release(eventId);
+        }
+
+        while (true) {
+            long delay = sendNext();
+            if (delay < 0) {
+                return 0;
+            }
+            long remaining = deadline - clock.millis();
+            if (delay > remaining) {
+                int dropped = queue.size();
+                synchronized (sendLock) {
+                    if (pendingBatch != null) {
+                        dropped += pendingBatch.size();
+                        pendingBatch = null;
+                    }
+                }
+                queue.clear();
+                droppedEmbeds.add(dropped);
+                if (dropped > 0) {
+                    logger.warn(dropped + " Discord notifications could not be sent before shutdown;"
+                            + " they will be retried on next startup");
+                }
+                return dropped;
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return queue.size();
+                }
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        List<Delivery> pending = pendingBatch;
+        int waiting;
+        synchronized (debouncing) {
+            waiting = debouncing.size();
+        }
+        return queue.size() + waiting + (pending != null ? pending.size() : 0);
+    }
+
+    public long getSentEmbedCount() {
+        return sentEmbeds.sum();
+    }
+
+    public long getSentMessageCount() {
+        return sentMessages.sum();
+    }
+
+    public long getEditedMessageCount() {
+        return editedMessages.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedEmbeds.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    public double getAverageSendMillis() {
+        long count = requests.sum();
+        return count == 0 ? 0.0 : sendNanos.sum() / (double) count / 1_000_000.0;
+    }
+
+    public long getMaxSendMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxSendNanos.get());
+    }
+
+    // 1つのEmbedとして送信する通知（変更待ちの間にまとめられた通知のキーを全て持つ）
+    private static final class Delivery {
+        private final String eventId;
+        private final List<String> keys = new ArrayList<>(1);
+        private JsonObject embed;
+
+        private Delivery(String eventId, String key, JsonObject embed) {
+            this.eventId = eventId;
+            this.keys.add(key);
+            this.embed = embed;
+        }
+
+        private void coalesce(String key, JsonObject embed) {
+            this.keys.add(key);
+            this.embed = embed;
+        }
+    }
+}
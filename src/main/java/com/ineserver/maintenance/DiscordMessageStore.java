@@ -0,0 +1,82 @@
+package com.ineserver.maintenance;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// メンテナンスイベントごとに投稿したDiscordメッセージのIDを保存する
+// 再起動後も同じメッセージを編集し続けられるようにファイルへ永続化する
+public class DiscordMessageStore {
+
+    private static final Type MAP_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+
+    private final Path file;
+    private final Logger logger;
+    private final Gson gson;
+    private final Map<String, String> messageIds = new HashMap<>();
+
+    public DiscordMessageStore(Path dataDirectory, String fileName, Logger logger) {
+        this.file = dataDirectory.resolve(fileName);
+        this.logger = logger;
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        load();
+    }
+
+    public synchronized String get(String eventId) {
+        return messageIds.get(eventId);
+    }
+
+    public synchronized void put(String eventId, String messageId) {
+        if (!messageId.equals(messageIds.put(eventId, messageId))) {
+            save();
+        }
+    }
+
+    public synchronized void remove(String eventId) {
+        if (messageIds.remove(eventId) != null) {
+            save();
+        }
+    }
+
+    public synchronized int size() {
+        return messageIds.size();
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, String> loaded = gson.fromJson(reader, MAP_TYPE);
+            if (loaded != null) {
+                messageIds.putAll(loaded);
+            }
+            logger.info("Discord message IDs loaded (" + messageIds.size() + " events)");
+        } catch (Exception e) {
+            logger.error("Failed to load Discord message IDs", e);
+        }
+    }
+
+    // 書き込み中に停止しても以前の内容が残るよう、一時ファイルに書いてから置き換える
+    private void save() {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temporary, gson.toJson(messageIds), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to save Discord message IDs", e);
+        }
+    }
+}
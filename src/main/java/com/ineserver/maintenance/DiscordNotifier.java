@@ -1,163 +1,132 @@
 package com.ineserver.maintenance;
 
 import com.google.gson.JsonObject;
-import okhttp3.*;
+import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 
-import java.io.IOException;
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-public class DiscordNotifier {
+// 1つのDiscord Webhookへ通知する通知先（Webhookごとに送信箱とメッセージIDを別々に保存する）
+public class DiscordNotifier implements MaintenanceNotifier {
 
-    private final ConfigManager configManager;
+    private final String name;
+    private final MessageTemplates templates;
+    private final Clock clock;
     private final Logger logger;
-    private final OkHttpClient httpClient;
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
-
-    public DiscordNotifier(ConfigManager configManager, Logger logger) {
-        this.configManager = configManager;
+    private final NotificationOutbox outbox;
+    private final DiscordMessageStore messageStore;
+    private final DiscordDeliveryQueue deliveryQueue;
+
+    // nameが"discord"の場合は従来どおりのファイル名を使用し、それ以外は名前をファイル名に付ける
+    public DiscordNotifier(String name, String webhookUrl, ConfigManager configManager, MessageTemplates templates,
+            PluginExecutors executors, OkHttpClient httpClient, Path dataDirectory, Clock clock, Logger logger) {
+        this.name = name;
+        this.templates = templates;
+        this.clock = clock;
         this.logger = logger;
-        this.httpClient = new OkHttpClient();
+        String suffix = name.equals("discord") ? "" : "-" + name;
+        this.outbox = new NotificationOutbox(dataDirectory, "notification-outbox" + suffix + ".jsonl", logger);
+        this.messageStore = new DiscordMessageStore(dataDirectory, "discord-messages" + suffix + ".json", logger);
+        this.deliveryQueue = new DiscordDeliveryQueue(httpClient, webhookUrl, configManager, executors, outbox,
+                messageStore, clock, logger);
+
+        // 前回停止時に送信できなかった通知を再送
+        replayOutbox();
     }
 
-    public void sendMaintenanceScheduled(MaintenanceEvent event) {
-        if (!configManager.isDiscordEnabled()) {
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private void replayOutbox() {
+        Map<String, JsonObject> pending = outbox.getPending();
+        if (pending.isEmpty()) {
             return;
         }
+        logger.info("Replaying " + pending.size() + " pending Discord notifications (" + name + ")");
+        for (Map.Entry<String, JsonObject> entry : pending.entrySet()) {
+            deliveryQueue.enqueue(entry.getKey(), entry.getValue());
+        }
+    }
 
+    @Override
+    public void sendMaintenanceScheduled(MaintenanceEvent event) {
         String title = "🔧 メンテナンスが予定されました";
-        String description = String.format(
-                "**開始時刻:** %s\n" +
-                        "**終了予定:** %s%s\n\n" +
-                        "📅 **カレンダー:** [Google Calendar](https://calendar.google.com/calendar/u/0?cid=dnFobnRpa2FsOXU1OWE1Ym1hOWphdmNjcWdAZ3JvdXAuY2FsZW5kYXIuZ29vZ2xlLmNvbQ)\n\n"
-                        +
-                        "⚠️ **メンテナンス実施中はサーバーにログインが出来ません**",
-                formatDateTime(event.getStartTime()),
-                formatDateTime(event.getEndTime()),
-                event.getDescription().isEmpty() ? "" : "\n\n**詳細:** " + event.getDescription());
-
-        sendEmbed(title, description, 0xFFA500); // オレンジ色
+        String description = templates.getDiscordScheduled().render(MessageTemplates.discordValues(event));
+
+        sendEmbed(event, "scheduled", title, description, 0xFFA500); // オレンジ色
     }
 
+    @Override
     public void sendMaintenanceStarted(MaintenanceEvent event) {
-        if (!configManager.isDiscordEnabled()) {
-            return;
-        }
-
         String title = "🚧 メンテナンスを開始しました";
-        String description = "現在メンテナンス中です。\n" +
-                "終了までしばらくお待ちください。\n\n" +
-                "⚠️ **メンテナンス実施中はサーバーにログインが出来ません**";
+        String description = templates.getDiscordStarted().render(MessageTemplates.discordValues(event));
 
-        sendEmbed(title, description, 0xFF0000); // 赤色
+        sendEmbed(event, "started", title, description, 0xFF0000); // 赤色
     }
 
+    @Override
     public void sendMaintenanceEnded(MaintenanceEvent event) {
-        if (!configManager.isDiscordEnabled()) {
-            return;
-        }
-
         String title = "✅ メンテナンスが終了しました";
-        String description = "メンテナンスが完了しました。\n" +
-                "ご協力ありがとうございました！";
+        String description = templates.getDiscordEnded().render(MessageTemplates.discordValues(event));
 
-        sendEmbed(title, description, 0x00FF00); // 緑色
+        sendEmbed(event, "ended", title, description, 0x00FF00); // 緑色
     }
 
+    @Override
     public void sendMaintenanceUpdated(MaintenanceEvent oldEvent, MaintenanceEvent newEvent) {
-        if (!configManager.isDiscordEnabled()) {
-            return;
-        }
-
         String title = "🔄 メンテナンス予定が変更されました";
-        String description = String.format(
-                "**変更前:**\n" +
-                        "開始: %s\n" +
-                        "終了: %s\n\n" +
-                        "**変更後:**\n" +
-                        "開始: %s\n" +
-                        "終了: %s%s\n\n" +
-                        "📅 **カレンダー:** [Google Calendar](https://calendar.google.com/calendar/u/0?cid=dnFobnRpa2FsOXU1OWE1Ym1hOWphdmNjcWdAZ3JvdXAuY2FsZW5kYXIuZ29vZ2xlLmNvbQ)",
-                formatDateTime(oldEvent.getStartTime()),
-                formatDateTime(oldEvent.getEndTime()),
-                formatDateTime(newEvent.getStartTime()),
-                formatDateTime(newEvent.getEndTime()),
-                newEvent.getDescription().isEmpty() ? "" : "\n\n**詳細:** " + newEvent.getDescription());
-
-        sendEmbed(title, description, 0xFFFF00); // 黄色
+        MessageTemplate.Values values = MessageTemplates.discordValues(newEvent)
+                .set(MessageTemplate.Placeholder.OLD_START, MessageTemplates.formatDiscordDateTime(oldEvent.getStartTime()))
+                .set(MessageTemplate.Placeholder.OLD_END, MessageTemplates.formatDiscordDateTime(oldEvent.getEndTime()));
+        String description = templates.getDiscordUpdated().render(values);
+
+        sendEmbed(newEvent, "updated", title, description, 0xFFFF00); // 黄色
     }
 
+    @Override
     public void sendMaintenanceCancelled(MaintenanceEvent event) {
-        if (!configManager.isDiscordEnabled()) {
-            return;
-        }
-
         String title = "❌ メンテナンス予定がキャンセルされました";
-        String description = String.format(
-                "以下のメンテナンス予定はキャンセルされました。\n\n" +
-                        "**タイトル:** %s\n" +
-                        "**タイトル:** %s\n" +
-                        "**当初の予定:** %s 〜 %s\n\n" +
-                        "📅 **カレンダー:** [Google Calendar](https://calendar.google.com/calendar/u/0?cid=dnFobnRpa2FsOXU1OWE1Ym1hOWphdmNjcWdAZ3JvdXAuY2FsZW5kYXIuZ29vZ2xlLmNvbQ)",
-                event.getTitle(),
-                formatDateTime(event.getStartTime()),
-                formatDateTime(event.getEndTime()));
-
-        sendEmbed(title, description, 0x808080); // 灰色
-    }
+        String description = templates.getDiscordCancelled().render(MessageTemplates.discordValues(event));
 
-    private void sendEmbed(String title, String description, int color) {
-        String webhookUrl = configManager.getDiscordWebhookUrl();
+        sendEmbed(event, "cancelled", title, description, 0x808080); // 灰色
+    }
 
-        if (webhookUrl == null || webhookUrl.isEmpty()) {
-            logger.warn("Discord webhook URL is not configured");
-            return;
+    // Embedを送信箱に記録してから送信キューに積む（通知先のレーンで呼ばれるため、同期書き込みで呼び出し元を待たせない）
+    // イベントの直前の通知と種類・内容が同じ場合は何もしない
+    private void sendEmbed(MaintenanceEvent event, String kind, String title, String description, int color) {
+        // Embedオブジェクトの作成
+        JsonObject embed = new JsonObject();
+        embed.addProperty("title", title);
+        embed.addProperty("description", description);
+        embed.addProperty("color", color);
+        embed.addProperty("timestamp", clock.instant().toString());
+
+        // フッターの追加
+        JsonObject footer = new JsonObject();
+        footer.addProperty("text", "Ineserver Maintenance Plugin");
+        embed.add("footer", footer);
+
+        String key = outbox.add(event, kind, embed);
+        if (key != null) {
+            deliveryQueue.enqueue(key, embed);
         }
+    }
 
-        try {
-            // Embedオブジェクトの作成
-            JsonObject embed = new JsonObject();
-            embed.addProperty("title", title);
-            embed.addProperty("description", description);
-            embed.addProperty("color", color);
-            embed.addProperty("timestamp", Instant.now().toString());
-
-            // フッターの追加
-            JsonObject footer = new JsonObject();
-            footer.addProperty("text", "Ineserver Maintenance Plugin");
-            embed.add("footer", footer);
-
-            // 配列にEmbedを追加
-            JsonObject payload = new JsonObject();
-            com.google.gson.JsonArray embeds = new com.google.gson.JsonArray();
-            embeds.add(embed);
-            payload.add("embeds", embeds);
-
-            // リクエストの送信
-            RequestBody body = RequestBody.create(payload.toString(), JSON);
-            Request request = new Request.Builder()
-                    .url(webhookUrl)
-                    .post(body)
-                    .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (response.isSuccessful()) {
-                    logger.info("Discord notification sent successfully: " + title);
-                } else {
-                    logger.error("Failed to send Discord notification. Status: " + response.code());
-                }
-            }
-
-        } catch (IOException e) {
-            logger.error("Error sending Discord notification", e);
-        }
+    public NotificationOutbox getOutbox() {
+        return outbox;
+    }
+
+    public DiscordDeliveryQueue getDeliveryQueue() {
+        return deliveryQueue;
     }
 
-    private String formatDateTime(Instant instant) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm")
-                .withZone(ZoneId.of("Asia/Tokyo"));
-        return formatter.format(instant);
+    @Override
+    public void shutdown(long timeout, TimeUnit unit) {
+        deliveryQueue.flush(timeout, unit);
     }
 }
@@ -1,45 +1,129 @@
 package com.ineserver.maintenance;
 
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Channel;
 import com.google.api.services.calendar.model.Event;
 import com.google.api.services.calendar.model.Events;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.ZoneId;
-import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-public class GoogleCalendarService {
+// 設定された全てのカレンダーを並行して取得し、1つの予定表に統合してメンテナンス管理側へ渡す
+// カレンダーごとに同期状態を持ち、遅い・失敗しているカレンダーがあっても他のカレンダーの反映は待たされない
+public class GoogleCalendarService implements MaintenanceEventSource {
 
     private static final String APPLICATION_NAME = "Ineserver Maintenance Plugin";
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+    private static final String CANCELLED = "cancelled";
+    private static final int PAGE_SIZE = 250;
+    // 変換に必要な項目のみを取得する
+    private static final String FIELDS =
+            "etag,nextPageToken,nextSyncToken,items(id,summary,description,start,end,status)";
+    // この期間内に開始するイベントのみをメンテナンスとして扱う
+    private static final long SYNC_WINDOW_MILLIS = 30L * 24 * 60 * 60 * 1000;
+    // 全件取得では期間にこの余裕を足した時刻までに開始するイベントだけを取得する
+    // 終わりのない繰り返しイベントの遠い将来の回を取得・保持しないため（余裕を使い切るたびに全件取得し直す）
+    private static final long MIRROR_MARGIN_MILLIS = 7L * 24 * 60 * 60 * 1000;
+    // 次の開始・終了時刻までの時間に対するチェック間隔の割合（1/10）
+    private static final int APPROACH_DIVISOR = 10;
 
     private final ConfigManager configManager;
     private final MaintenanceManager maintenanceManager;
+    private final PluginExecutors executors;
     private final Logger logger;
 
     private Calendar calendarService;
-    private ScheduledExecutorService scheduler;
+    private volatile ScheduledFuture<?> nextCheck;
+    private volatile boolean stopped;
+    // 前回のチェックが終わる前に次のチェックを始めない
+    private final AtomicBoolean checking = new AtomicBoolean();
     private boolean initialized = false;
 
+    // 設定順のカレンダー（同じイベントが複数のカレンダーにある場合は先のものを優先する）
+    private final List<Source> sources = new ArrayList<>();
+    // メンテナンス管理側に渡したイベント（全カレンダーを統合した、同期対象期間内のもの）
+    private final Map<String, MaintenanceEvent> forwarded = new HashMap<>();
+    private volatile int duplicateCount;
+
+    private final LongAdder fullSyncCount = new LongAdder();
+    private final LongAdder incrementalSyncCount = new LongAdder();
+    private final LongAdder conditionalPollCount = new LongAdder();
+    private final LongAdder notModifiedCount = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    // 適応的なチェック間隔の状態
+    private volatile long currentIntervalMillis;
+    private volatile long lastSuccessMillis = -1;
+    private volatile int consecutiveFailures;
+    private volatile boolean stale;
+    // チェック中に変更通知が届いた場合、終了後すぐにもう一度チェックする
+    private final AtomicBoolean recheckRequested = new AtomicBoolean();
+
+    // プッシュ通知（events.watch）の状態（チャンネルはカレンダーごとに持つ）
+    private CalendarPushReceiver pushReceiver;
+    private final String pushToken = UUID.randomUUID().toString();
+    private final LongAdder pushNotificationCount = new LongAdder();
+
     public GoogleCalendarService(ConfigManager configManager, MaintenanceManager maintenanceManager,
-            Logger logger) {
+            PluginExecutors executors, Path dataDirectory, Logger logger) {
         this.configManager = configManager;
         this.maintenanceManager = maintenanceManager;
+        this.executors = executors;
         this.logger = logger;
+
+        // 最初のカレンダーは従来のファイル名を使い、以前の同期状態を引き継ぐ
+        List<String> calendarIds = new ArrayList<>();
+        calendarIds.add(configManager.getGoogleCalendarId());
+        for (String calendarId : configManager.getGoogleCalendarAdditionalIds()) {
+            if (!calendarIds.contains(calendarId)) {
+                calendarIds.add(calendarId);
+            }
+        }
+        for (String calendarId : calendarIds) {
+            String fileName = sources.isEmpty()
+                    ? "calendar-sync.json"
+                    : "calendar-sync-" + calendarId.replaceAll("[^A-Za-z0-9._-]", "_") + ".json";
+            sources.add(new Source(calendarId, new CalendarSyncStore(dataDirectory, fileName, calendarId, logger)));
+        }
+
+        // 前回の写しを復元（期間内のイベントは保存済みのメンテナンス状態から復元されている）
+        forwarded.putAll(mergeWindowEvents());
     }
 
+    @Override
+    public String getName() {
+        return "google-calendar";
+    }
+
+    @Override
     public void initialize() {
         if (!configManager.isGoogleCalendarEnabled()) {
             logger.info("Google Calendar integration is disabled in configuration.");
@@ -61,87 +145,353 @@ public class GoogleCalendarService {
 
         try {
             // HTTPトランスポートの構築
-            NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+            initialize(GoogleNetHttpTransport.newTrustedTransport());
+        } catch (GeneralSecurityException | IOException e) {
+            logger.error("Failed to initialize Google Calendar API", e);
+        }
+    }
 
-            // Calendar APIサービスの構築（APIキー認証）
-            calendarService = new Calendar.Builder(httpTransport, JSON_FACTORY, null)
-                    .setApplicationName(APPLICATION_NAME)
-                    .build();
+    // テストでは応答を差し替えたトランスポートを渡す
+    void initialize(HttpTransport httpTransport) {
+        // Calendar APIサービスの構築（APIキー認証）
+        calendarService = new Calendar.Builder(httpTransport, JSON_FACTORY, null)
+                .setApplicationName(APPLICATION_NAME)
+                .build();
 
-            initialized = true;
-            logger.info("Google Calendar API initialized successfully with API key");
+        initialized = true;
+        logger.info("Google Calendar API initialized successfully with API key ("
+                + sources.size() + " calendars)");
 
-            // 定期的にカレンダーをチェック
-            startScheduledCheck();
+        // 定期的にカレンダーをチェック
+        startScheduledCheck();
 
-        } catch (GeneralSecurityException | IOException e) {
-            logger.error("Failed to initialize Google Calendar API", e);
+        // 変更通知を受け取れる場合は、通知を受けたときにすぐチェックする
+        if (configManager.isGoogleCalendarPushEnabled()) {
+            startPush();
         }
     }
 
+    // 固定間隔ではなく、チェックのたびに次回までの間隔を決め直す
+    // 直近のメンテナンスが近いほど短く（下限まで）、遠い場合は設定された間隔でチェックする
+    // 取得に失敗した場合は指数的に間隔を延ばし、ゆらぎを加えて再試行が集中しないようにする
     private void startScheduledCheck() {
-        scheduler = Executors.newScheduledThreadPool(1);
-
         int checkIntervalMinutes = configManager.getGoogleCalendarCheckInterval();
+        currentIntervalMillis = TimeUnit.MINUTES.toMillis(checkIntervalMinutes);
 
+        // タイマーは起動のみ行い、API呼び出しはI/O用の実行器で行う
         // 初回チェック（起動後1分後）
-        scheduler.schedule(this::checkCalendarEvents, 1, TimeUnit.MINUTES);
+        scheduleNextCheck(TimeUnit.MINUTES.toMillis(1));
 
-        // 定期チェック
-        scheduler.scheduleAtFixedRate(this::checkCalendarEvents,
-                checkIntervalMinutes, checkIntervalMinutes, TimeUnit.MINUTES);
+        logger.info("Started adaptive calendar check (interval: "
+                + configManager.getGoogleCalendarMinIntervalSeconds() + " seconds - "
+                + checkIntervalMinutes + " minutes)");
+    }
 
-        logger.info("Started scheduled calendar check (interval: " + checkIntervalMinutes + " minutes)");
+    // 予定済みのチェックを置き換える（チェックの予定は常に1つだけにする）
+    private synchronized void scheduleNextCheck(long delayMillis) {
+        if (stopped) {
+            return;
+        }
+        ScheduledFuture<?> previous = nextCheck;
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        try {
+            nextCheck = executors.getTimers().schedule(this::submitCheck, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Calendar check was not rescheduled (shutting down)");
+        }
     }
 
-    private void checkCalendarEvents() {
+    // 全てのカレンダーを並行して取得する
+    // 各カレンダーの結果は取得し終えた時点で個別に反映し、全て終わってから次回の予定を立てる
+    private void submitCheck() {
         if (!initialized) {
             return;
         }
+        if (!checking.compareAndSet(false, true)) {
+            // 実行中のチェックの終了時に次回の予定が立てられる
+            logger.debug("Previous calendar check is still running; checking again when it finishes");
+            recheckRequested.set(true);
+            return;
+        }
 
-        try {
-            String calendarId = configManager.getGoogleCalendarId();
-            String apiKey = configManager.getGoogleCalendarApiKey();
+        List<CompletableFuture<Boolean>> fetches = new ArrayList<>(sources.size());
+        for (Source source : sources) {
+            try {
+                fetches.add(CompletableFuture.supplyAsync(source::fetch, executors.getIo()));
+            } catch (RejectedExecutionException e) {
+                fetches.add(CompletableFuture.completedFuture(false));
+            }
+        }
+
+        CompletableFuture.allOf(fetches.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+            long delayMillis = currentIntervalMillis;
+            try {
+                boolean anySucceeded = false;
+                for (CompletableFuture<Boolean> fetch : fetches) {
+                    anySucceeded |= fetch.getNow(false);
+                }
+                delayMillis = anySucceeded ? onCheckSucceeded() : onCheckFailed();
+            } finally {
+                checking.set(false);
+                scheduleNextCheck(recheckRequested.getAndSet(false) ? 0 : delayMillis);
+            }
+        });
+    }
+
+    // 1つでもカレンダーを取得できた場合（失敗したカレンダーは個別に記録される）
+    private long onCheckSucceeded() {
+        lastSuccessMillis = maintenanceManager.getClock().millis();
+        if (stale) {
+            logger.info("Calendar fetch recovered after " + consecutiveFailures + " failures");
+        }
+        consecutiveFailures = 0;
+        stale = false;
+        currentIntervalMillis = computeIntervalMillis();
+        return currentIntervalMillis;
+    }
+
+    // 全てのカレンダーの取得に失敗した場合
+    // 失敗が続くほど間隔を倍にし（上限あり）、その半分から全体までの範囲でゆらぎを加える
+    private long onCheckFailed() {
+        int failures = ++consecutiveFailures;
+        if (!stale && failures >= configManager.getGoogleCalendarStaleAfterFailures()) {
+            stale = true;
+            logger.warn("Calendar fetch failed " + failures + " times in a row; the cached schedule may be stale");
+        }
+
+        long floorMillis = TimeUnit.SECONDS.toMillis(configManager.getGoogleCalendarMinIntervalSeconds());
+        long maxBackoffMillis = TimeUnit.MINUTES.toMillis(configManager.getGoogleCalendarMaxBackoffMinutes());
+        long backoffMillis = Math.min(maxBackoffMillis, floorMillis << Math.min(failures - 1, 20));
+        currentIntervalMillis = backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+        return currentIntervalMillis;
+    }
 
-            // 現在時刻から未来のイベントを取得
-            DateTime now = new DateTime(System.currentTimeMillis());
+    // 次に開始（実施中の場合は終了）するメンテナンスまでの時間から間隔を決める
+    // 変更通知を受け取れている間は、通知の取りこぼしに備えて最長の間隔でのみチェックする
+    private long computeIntervalMillis() {
+        long floorMillis = TimeUnit.SECONDS.toMillis(configManager.getGoogleCalendarMinIntervalSeconds());
+        long maxMillis = Math.max(floorMillis,
+                TimeUnit.MINUTES.toMillis(configManager.getGoogleCalendarCheckInterval()));
+        if (isPushActive()) {
+            return maxMillis;
+        }
 
-            // 今後30日間のイベントを取得
-            DateTime maxTime = new DateTime(System.currentTimeMillis() + (30L * 24 * 60 * 60 * 1000));
+        Instant now = maintenanceManager.getClock().instant();
+        long untilNext = Long.MAX_VALUE;
+        for (MaintenanceEvent event : mergeWindowEvents().values()) {
+            Instant boundary = event.getStartTime().isAfter(now) ? event.getStartTime() : event.getEndTime();
+            untilNext = Math.min(untilNext, boundary.toEpochMilli() - now.toEpochMilli());
+        }
+        if (untilNext == Long.MAX_VALUE) {
+            return maxMillis;
+        }
+        return Math.max(floorMillis, Math.min(maxMillis, untilNext / APPROACH_DIVISOR));
+    }
 
-            Events events = calendarService.events().list(calendarId)
-                    .setKey(apiKey) // APIキーを設定
-                    .setTimeMin(now)
-                    .setTimeMax(maxTime)
-                    .setOrderBy("startTime")
-                    .setSingleEvents(true)
-                    .setMaxResults(10)
-                    .execute();
+    // 全カレンダーの写しを統合し、前回渡したものとの差分をメンテナンス管理側へ反映する
+    // 全件取得の後は、保存済みの状態に残った古いイベントも整理するため統合結果全体を渡す
+    // （まだ一度も取得できていないカレンダーがある場合は、そのイベントを消さないよう差分のみ渡す）
+    private void mergeAndApply(boolean fullSync) {
+        synchronized (forwarded) {
+            Map<String, MaintenanceEvent> merged = mergeWindowEvents();
 
-            java.util.List<Event> items = events.getItems();
+            boolean allReady = true;
+            for (Source source : sources) {
+                allReady &= source.ready;
+            }
 
-            if (items.isEmpty()) {
-                logger.debug("No upcoming maintenance events found in calendar");
-                // 空のリストで同期（これにより、既存のイベントが全てキャンセルされる可能性があるが、
-                // 30日以内のイベントがないという意味なので、30日以内のものは消えるべき）
+            List<MaintenanceEvent> changedEvents = new ArrayList<>();
+            for (MaintenanceEvent event : merged.values()) {
+                if (!event.equals(forwarded.get(event.getId()))) {
+                    changedEvents.add(event);
+                }
+            }
+            List<String> removedIds = new ArrayList<>();
+            for (String forwardedId : forwarded.keySet()) {
+                if (!merged.containsKey(forwardedId)) {
+                    removedIds.add(forwardedId);
+                }
+            }
+
+            if (fullSync && allReady) {
+                if (merged.isEmpty()) {
+                    logger.debug("No upcoming maintenance events found in calendar");
+                }
+                maintenanceManager.syncGoogleCalendarEvents(new ArrayList<>(merged.values()));
+            } else if (!changedEvents.isEmpty() || !removedIds.isEmpty()) {
+                maintenanceManager.applyGoogleCalendarChanges(changedEvents, removedIds);
+            }
+            if (!changedEvents.isEmpty() || !removedIds.isEmpty()) {
+                logger.info("Calendar schedule updated (" + changedEvents.size() + " updated, "
+                        + removedIds.size() + " removed)");
             }
 
-            java.util.List<MaintenanceEvent> maintenanceEvents = new java.util.ArrayList<>();
+            forwarded.clear();
+            forwarded.putAll(merged);
+        }
+    }
 
-            // 全てのイベントを処理
-            for (Event event : items) {
-                MaintenanceEvent maintenanceEvent = createMaintenanceEvent(event);
-                if (maintenanceEvent != null) {
-                    maintenanceEvents.add(maintenanceEvent);
+    // 同期対象期間（今後30日間）に開始するイベントを設定順に統合する
+    // 同じイベントIDが複数のカレンダーにある場合は先のカレンダーのものを使う
+    private Map<String, MaintenanceEvent> mergeWindowEvents() {
+        Instant windowEnd = maintenanceManager.getClock().instant().plusMillis(SYNC_WINDOW_MILLIS);
+        Map<String, MaintenanceEvent> merged = new LinkedHashMap<>();
+        int duplicates = 0;
+        for (Source source : sources) {
+            for (MaintenanceEvent event : source.snapshot.values()) {
+                if (event.getStartTime().isBefore(windowEnd) && merged.putIfAbsent(event.getId(), event) != null) {
+                    duplicates++;
                 }
             }
+        }
+        duplicateCount = duplicates;
+        return merged;
+    }
 
-            // 同期処理を実行
-            maintenanceManager.syncGoogleCalendarEvents(maintenanceEvents);
+    private void startPush() {
+        String callbackUrl = configManager.getGoogleCalendarPushCallbackUrl();
+        if (callbackUrl.isEmpty()) {
+            logger.error("Please set 'google-calendar.push.callback-url' in config.yml; using polling only");
+            return;
+        }
 
+        pushReceiver = new CalendarPushReceiver(configManager.getGoogleCalendarPushBindAddress(),
+                configManager.getGoogleCalendarPushPort(), configManager.getGoogleCalendarPushPath(),
+                executors.getIo(), logger);
+        try {
+            pushReceiver.start(this::onPushNotification);
         } catch (IOException e) {
-            logger.error("Failed to fetch calendar events", e);
+            logger.error("Failed to start calendar push receiver; using polling only", e);
+            pushReceiver = null;
+            return;
+        }
+        for (Source source : sources) {
+            executors.getIo().execute(source::registerChannel);
+        }
+    }
+
+    private void onPushNotification() {
+        pushNotificationCount.increment();
+        if (checking.get()) {
+            recheckRequested.set(true);
+        }
+        scheduleNextCheck(0);
+    }
+
+    // 全てのカレンダーに有効なチャンネルがあり、期限が切れていない
+    public boolean isPushActive() {
+        if (pushReceiver == null) {
+            return false;
+        }
+        for (Source source : sources) {
+            if (!source.isPushActive()) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    public long getPushNotificationCount() {
+        return pushNotificationCount.sum();
+    }
+
+    public long getRejectedPushCount() {
+        return pushReceiver != null ? pushReceiver.getRejectedCount() : 0;
+    }
+
+    // 差分同期と全件取得で同じ条件を使う（syncTokenは取得条件ごとに発行されるため）
+    // 取得する項目は変換に必要なものに限定する
+    private Calendar.Events.List listRequest(String calendarId) throws IOException {
+        Calendar.Events.List request = calendarService.events().list(calendarId)
+                .setKey(configManager.getGoogleCalendarApiKey()) // APIキーを設定
+                .setSingleEvents(true)
+                .setMaxResults(PAGE_SIZE)
+                .setFields(FIELDS);
+
+        // メンテナンス用のイベントだけをサーバー側で絞り込む
+        String keyword = configManager.getGoogleCalendarFilterKeyword();
+        if (!keyword.isEmpty()) {
+            request.setQ(keyword);
+        }
+        String property = configManager.getGoogleCalendarFilterProperty();
+        if (!property.isEmpty()) {
+            request.setPrivateExtendedProperty(List.of(property));
+        }
+        return request;
+    }
+
+    private boolean isFiltered() {
+        return !configManager.getGoogleCalendarFilterKeyword().isEmpty()
+                || !configManager.getGoogleCalendarFilterProperty().isEmpty();
+    }
+
+    public List<Source> getSources() {
+        return List.copyOf(sources);
+    }
+
+    // 複数のカレンダーに登録されていたため統合時に除いたイベントの数
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    public long getFullSyncCount() {
+        return fullSyncCount.sum();
+    }
+
+    public long getIncrementalSyncCount() {
+        return incrementalSyncCount.sum();
+    }
+
+    public long getConditionalPollCount() {
+        return conditionalPollCount.sum();
+    }
+
+    public long getNotModifiedCount() {
+        return notModifiedCount.sum();
+    }
+
+    public double getNotModifiedRatio() {
+        long polls = conditionalPollCount.sum();
+        return polls == 0 ? 0.0 : (double) notModifiedCount.sum() / polls;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    // 304応答により受信せずに済んだ量（直前の応答サイズからの推定値）
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    public long getCurrentIntervalMillis() {
+        return currentIntervalMillis;
+    }
+
+    // 最後に取得に成功してからの経過時間（未成功の場合は-1）
+    public long getLastSuccessAgeMillis() {
+        long last = lastSuccessMillis;
+        return last < 0 ? -1 : maintenanceManager.getClock().millis() - last;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    // 取得の失敗が続き、手元の予定が古くなっている可能性がある（一部のカレンダーのみの場合も含む）
+    public boolean isStale() {
+        if (stale) {
+            return true;
+        }
+        int threshold = configManager.getGoogleCalendarStaleAfterFailures();
+        for (Source source : sources) {
+            if (source.consecutiveFailures >= threshold) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private MaintenanceEvent createMaintenanceEvent(Event event) {
@@ -159,7 +509,7 @@ public class GoogleCalendarService {
                 return null;
             }
 
-            Instant now = Instant.now();
+            Instant now = maintenanceManager.getClock().instant();
 
             // 完全に過去のイベント（終了時刻も過去）はスキップ
             if (endTime.isBefore(now)) {
@@ -201,21 +551,428 @@ public class GoogleCalendarService {
         return null;
     }
 
+    // 定期チェックを止める（実行中のチェックは共有実行器の停止時に待機される）
+    @Override
     public void shutdown() {
-        if (scheduler != null) {
-            scheduler.shutdown();
-            try {
-                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                scheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
+        stopped = true;
+        ScheduledFuture<?> future = nextCheck;
+        if (future != null) {
+            future.cancel(false);
+        }
+        for (Source source : sources) {
+            source.stopPush();
+        }
+        if (pushReceiver != null) {
+            pushReceiver.stop();
         }
     }
 
+    @Override
     public boolean isInitialized() {
         return initialized;
     }
+
+    // 1つのカレンダーと、その同期状態・取得の統計
+    // 取得処理はチェックごとに1回だけ実行されるため、写しやETagの更新に同期は不要
+    public final class Source {
+        private final String calendarId;
+        private final CalendarSyncStore syncStore;
+        // カレンダー上の現在以降（期間と余裕の範囲内）のイベントの写し（取得処理のみが更新する）
+        private final Map<String, MaintenanceEvent> mirror = new HashMap<>();
+        // 統合処理から参照する写しのコピー
+        private volatile Map<String, MaintenanceEvent> snapshot;
+        // 同期状態を保存済み、または起動後に取得できた（写しを信頼してよい）
+        private volatile boolean ready;
+        // 前回の全件取得の期間上限（これ以降に開始するイベントは写しにない。以前の形式の保存状態ではLong.MAX_VALUE）
+        private long horizonMillis;
+
+        // 差分取得の1ページ目に対するETag（条件付きリクエスト用）
+        private String lastETag;
+        private String lastETagSyncToken;
+        private long lastResponseBytes;
+
+        private volatile Channel activeChannel;
+        private volatile long activeChannelExpiration;
+        private volatile ScheduledFuture<?> channelRenewal;
+
+        private final LongAdder fetchCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile long lastFetchMillis = -1;
+        private volatile int consecutiveFailures;
+        private volatile String lastError;
+
+        private Source(String calendarId, CalendarSyncStore syncStore) {
+            this.calendarId = calendarId;
+            this.syncStore = syncStore;
+            mirror.putAll(syncStore.getEvents());
+            horizonMillis = syncStore.getHorizonMillis();
+            snapshot = Map.copyOf(mirror);
+            ready = syncStore.getSyncToken() != null || !mirror.isEmpty();
+        }
+
+        // 取得に成功した場合はtrue（失敗しても他のカレンダーの取得・反映には影響しない）
+        boolean fetch() {
+            long startedAt = System.nanoTime();
+            boolean succeeded = false;
+            try {
+                succeeded = sync();
+            } catch (RuntimeException e) {
+                lastError = e.toString();
+                logger.error("Unexpected error while fetching calendar " + calendarId, e);
+            } finally {
+                long elapsed = System.nanoTime() - startedAt;
+                fetchCount.increment();
+                totalNanos.add(elapsed);
+                maxNanos.accumulateAndGet(elapsed, Math::max);
+                lastFetchMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+            }
+
+            if (succeeded) {
+                consecutiveFailures = 0;
+                lastError = null;
+            } else {
+                failureCount.increment();
+                if (++consecutiveFailures == configManager.getGoogleCalendarStaleAfterFailures()) {
+                    logger.warn("Calendar " + calendarId + " failed " + consecutiveFailures
+                            + " times in a row; its events may be stale");
+                }
+            }
+            return succeeded;
+        }
+
+        private boolean sync() {
+            try {
+                String syncToken = syncStore.getSyncToken();
+                // 絞り込み条件はsyncTokenと併用できないため、その場合は毎回期間内を全件取得する
+                // 期間が前回の全件取得の上限に達した場合も全件取得する（上限より先のイベントは変更がなければ差分取得では届かない）
+                long windowEnd = maintenanceManager.getClock().millis() + SYNC_WINDOW_MILLIS;
+                if (syncToken == null || isFiltered() || windowEnd >= horizonMillis) {
+                    fullSync();
+                } else {
+                    incrementalSync(syncToken);
+                }
+                return true;
+            } catch (HttpResponseException e) {
+                if (e.getStatusCode() != 410) {
+                    onFetchFailed(e);
+                    return false;
+                }
+
+                // syncTokenの期限切れ: 全件取得からやり直す
+                logger.warn("Calendar sync token expired for " + calendarId + "; performing a full sync");
+                syncStore.clear();
+                try {
+                    fullSync();
+                    return true;
+                } catch (IOException retryException) {
+                    onFetchFailed(retryException);
+                    return false;
+                }
+            } catch (IOException e) {
+                onFetchFailed(e);
+                return false;
+            }
+        }
+
+        private void onFetchFailed(IOException e) {
+            lastError = e.getMessage();
+            logger.error("Failed to fetch calendar events from " + calendarId, e);
+        }
+
+        // 現在から期間（と余裕）の上限までに開始するイベントを全件取得し、写しを作り直す（ページごとに変換する）
+        // 上限を指定しないと終わりのない繰り返しイベントの回が全て返るため、必ず上限を指定する
+        // 上限付きの一覧に対するsyncTokenは上限が変わると使えないため、期間が上限に達したら全件取得し直す
+        // 絞り込み条件がある場合はsyncTokenを使えず毎回全件取得するため、余裕は付けない
+        private void fullSync() throws IOException {
+            long nowMillis = maintenanceManager.getClock().millis();
+            DateTime now = new DateTime(nowMillis);
+            boolean filtered = isFiltered();
+            long horizon = nowMillis + SYNC_WINDOW_MILLIS + (filtered ? 0 : MIRROR_MARGIN_MILLIS);
+
+            Map<String, MaintenanceEvent> fetched = new HashMap<>();
+            String pageToken = null;
+            String nextSyncToken;
+            do {
+                Events events = listRequest(calendarId)
+                        .setTimeMin(now)
+                        .setTimeMax(new DateTime(horizon))
+                        .setPageToken(pageToken)
+                        .execute();
+
+                for (Event event : events.getItems()) {
+                    if (CANCELLED.equals(event.getStatus())) {
+                        continue;
+                    }
+                    MaintenanceEvent maintenanceEvent = createMaintenanceEvent(event);
+                    if (maintenanceEvent != null) {
+                        fetched.put(maintenanceEvent.getId(), maintenanceEvent);
+                    }
+                }
+
+                pageToken = events.getNextPageToken();
+                nextSyncToken = events.getNextSyncToken();
+            } while (pageToken != null);
+
+            mirror.clear();
+            mirror.putAll(fetched);
+            horizonMillis = horizon;
+            snapshot = Map.copyOf(mirror);
+            ready = true;
+
+            // 全件での同期処理を実行
+            mergeAndApply(true);
+            fullSyncCount.increment();
+
+            syncStore.save(filtered ? null : nextSyncToken, horizonMillis, mirror.values());
+            logger.debug("Full calendar sync of " + calendarId + " completed (" + mirror.size() + " events)");
+        }
+
+        // 前回以降に変更・削除されたイベントだけを取得し、差分のみを反映する
+        private void incrementalSync(String syncToken) throws IOException {
+            // 途中のページで失敗した場合はsyncTokenを進めないため、次回同じ変更を再取得して反映し直す
+            // 前回の全件取得の上限より先に追加・移動されたイベントは写しに持たない
+            int changeCount = 0;
+            long horizon = Math.min(horizonMillis,
+                    maintenanceManager.getClock().millis() + SYNC_WINDOW_MILLIS + MIRROR_MARGIN_MILLIS);
+            boolean dropped = false;
+            String pageToken = null;
+            String nextSyncToken;
+            do {
+                Calendar.Events.List request = listRequest(calendarId)
+                        .setSyncToken(syncToken)
+                        .setPageToken(pageToken);
+
+                Events events;
+                if (pageToken == null) {
+                    // 1ページ目は前回と同じ条件であればETagで変更の有無を確認する
+                    events = executeConditional(request, syncToken);
+                    if (events == null) {
+                        // 変更なし: 取得・変換だけを省き、期間への出入りは下で反映する
+                        nextSyncToken = null;
+                        break;
+                    }
+                } else {
+                    events = request.execute();
+                }
+
+                for (Event event : events.getItems()) {
+                    String eventId = event.getId();
+                    changeCount++;
+
+                    MaintenanceEvent maintenanceEvent = CANCELLED.equals(event.getStatus())
+                            ? null
+                            : createMaintenanceEvent(event);
+                    if (maintenanceEvent == null) {
+                        mirror.remove(eventId);
+                    } else if (maintenanceEvent.getStartTime().toEpochMilli() >= horizon) {
+                        // 上限に近づいたら全件取得で拾い直す
+                        mirror.remove(eventId);
+                        dropped = true;
+                    } else {
+                        mirror.put(eventId, maintenanceEvent);
+                    }
+                }
+
+                pageToken = events.getNextPageToken();
+                nextSyncToken = events.getNextSyncToken();
+            } while (pageToken != null);
+
+            // 終了したイベントは写しから外す
+            Instant now = maintenanceManager.getClock().instant();
+            boolean pruned = mirror.values().removeIf(event -> event.getEndTime().isBefore(now));
+            if (dropped) {
+                horizonMillis = horizon;
+            }
+
+            // 期間内に入った・変更された・期間外になった（削除を含む）イベントを統合結果との差分で反映する
+            // 期間内に入っただけのイベントも拾うため、変更がなくても毎回統合し直す
+            snapshot = Map.copyOf(mirror);
+            mergeAndApply(false);
+            incrementalSyncCount.increment();
+
+            if (changeCount > 0 || pruned || nextSyncToken != null && !nextSyncToken.equals(syncToken)) {
+                syncStore.save(nextSyncToken != null ? nextSyncToken : syncToken, horizonMillis, mirror.values());
+            }
+            if (changeCount > 0) {
+                logger.info("Incremental calendar sync of " + calendarId + " fetched " + changeCount + " changes");
+            }
+        }
+
+        // If-None-Matchを付けて取得し、304 Not Modifiedの場合はnullを返す
+        // ETagは取得条件（syncToken）ごとに異なるため、前回と同じsyncTokenの場合のみ送る
+        private Events executeConditional(Calendar.Events.List request, String syncToken) throws IOException {
+            conditionalPollCount.increment();
+            boolean conditional = lastETag != null && syncToken.equals(lastETagSyncToken);
+            if (conditional) {
+                request.setRequestHeaders(new HttpHeaders().setIfNoneMatch(lastETag));
+            }
+
+            HttpResponse response;
+            try {
+                response = request.executeUnparsed();
+            } catch (HttpResponseException e) {
+                if (conditional && e.getStatusCode() == 304) {
+                    notModifiedCount.increment();
+                    if (lastResponseBytes > 0) {
+                        bytesSaved.add(lastResponseBytes);
+                    }
+                    return null;
+                }
+                throw e;
+            }
+
+            Long contentLength = response.getHeaders().getContentLength();
+            Events events = response.parseAs(Events.class);
+            lastETag = response.getHeaders().getETag() != null ? response.getHeaders().getETag() : events.getEtag();
+            lastETagSyncToken = syncToken;
+            lastResponseBytes = contentLength != null ? contentLength : 0;
+            if (contentLength != null) {
+                bytesReceived.add(contentLength);
+            }
+            return events;
+        }
+
+        // 新しいチャンネルを登録し、期限の少し前に次のチャンネルへ切り替える
+        // 古いチャンネルは新しいチャンネルの登録後に停止するため、切り替え中の通知も取りこぼさない
+        private void registerChannel() {
+            if (stopped) {
+                return;
+            }
+
+            long ttlMillis = TimeUnit.HOURS.toMillis(configManager.getGoogleCalendarPushChannelTtlHours());
+            String channelId = UUID.randomUUID().toString();
+            Channel request = new Channel()
+                    .setId(channelId)
+                    .setType("web_hook")
+                    .setAddress(configManager.getGoogleCalendarPushCallbackUrl())
+                    .setToken(pushToken)
+                    .setParams(Map.of("ttl", String.valueOf(TimeUnit.MILLISECONDS.toSeconds(ttlMillis))));
+
+            // 登録直後に確認用の通知が届くため、先に受け付けておく
+            pushReceiver.addChannel(channelId, pushToken);
+            Channel channel;
+            try {
+                channel = calendarService.events().watch(calendarId, request)
+                        .setKey(configManager.getGoogleCalendarApiKey())
+                        .execute();
+            } catch (IOException e) {
+                pushReceiver.removeChannel(channelId);
+                onChannelFailed(e);
+                return;
+            }
+
+            long now = maintenanceManager.getClock().millis();
+            Channel previous = activeChannel;
+            activeChannel = channel;
+            activeChannelExpiration = channel.getExpiration() != null ? channel.getExpiration() : now + ttlMillis;
+            if (previous != null) {
+                stopChannel(previous);
+            }
+
+            long renewBeforeMillis = TimeUnit.MINUTES.toMillis(configManager.getGoogleCalendarPushRenewBeforeMinutes());
+            long renewInMillis = Math.max(TimeUnit.MINUTES.toMillis(1), activeChannelExpiration - now - renewBeforeMillis);
+            scheduleChannelRenewal(renewInMillis);
+            logger.info("Calendar push channel registered for " + calendarId
+                    + " (renewal in " + renewInMillis / 60000 + " minutes)");
+
+            // 通知を受け取れるようになったので、チェック間隔を広げる
+            scheduleNextCheck(0);
+        }
+
+        // チャンネルが登録・更新できない場合はポーリングに戻り、時間をおいて登録し直す
+        private void onChannelFailed(IOException e) {
+            Channel previous = activeChannel;
+            activeChannel = null;
+            if (previous != null) {
+                pushReceiver.removeChannel(previous.getId());
+            }
+            logger.warn("Failed to register calendar push channel for " + calendarId + "; falling back to polling", e);
+
+            scheduleNextCheck(0);
+            scheduleChannelRenewal(TimeUnit.MINUTES.toMillis(configManager.getGoogleCalendarMaxBackoffMinutes()));
+        }
+
+        private void scheduleChannelRenewal(long delayMillis) {
+            if (stopped) {
+                return;
+            }
+            try {
+                channelRenewal = executors.getTimers().schedule(
+                        () -> executors.getIo().execute(this::registerChannel), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Calendar push channel renewal was not scheduled (shutting down)");
+            }
+        }
+
+        private void stopChannel(Channel channel) {
+            pushReceiver.removeChannel(channel.getId());
+            try {
+                calendarService.channels().stop(new Channel()
+                                .setId(channel.getId())
+                                .setResourceId(channel.getResourceId()))
+                        .setKey(configManager.getGoogleCalendarApiKey())
+                        .execute();
+            } catch (IOException e) {
+                // 停止できなくても期限切れで自然に止まる
+                logger.debug("Failed to stop calendar push channel " + channel.getId() + ": " + e.getMessage());
+            }
+        }
+
+        private void stopPush() {
+            ScheduledFuture<?> renewal = channelRenewal;
+            if (renewal != null) {
+                renewal.cancel(false);
+            }
+            Channel channel = activeChannel;
+            activeChannel = null;
+            if (channel != null) {
+                stopChannel(channel);
+            }
+        }
+
+        private boolean isPushActive() {
+            return activeChannel != null && activeChannelExpiration > maintenanceManager.getClock().millis();
+        }
+
+        public String getCalendarId() {
+            return calendarId;
+        }
+
+        public int getEventCount() {
+            return snapshot.size();
+        }
+
+        public long getFetchCount() {
+            return fetchCount.sum();
+        }
+
+        public long getFailureCount() {
+            return failureCount.sum();
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        // 直近の失敗理由（成功した場合はnull）
+        public String getLastError() {
+            return lastError;
+        }
+
+        // 前回の取得にかかった時間（未取得の場合は-1）
+        public long getLastFetchMillis() {
+            return lastFetchMillis;
+        }
+
+        public double getAverageFetchMillis() {
+            long count = fetchCount.sum();
+            return count == 0 ? 0.0 : totalNanos.sum() / (double) count / 1_000_000.0;
+        }
+
+        public long getMaxFetchMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+    }
 }
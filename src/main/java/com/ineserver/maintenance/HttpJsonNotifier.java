@@ -0,0 +1,91 @@
+package com.ineserver.maintenance;
+
+import com.google.gson.JsonObject;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+
+// 任意のHTTPエンドポイントへメンテナンスの状態変化をJSONでPOSTする通知先
+public class HttpJsonNotifier implements MaintenanceNotifier {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final String url;
+    private final OkHttpClient httpClient;
+    private final Clock clock;
+
+    public HttpJsonNotifier(String url, OkHttpClient httpClient, Clock clock) {
+        this.url = url;
+        this.httpClient = httpClient;
+        this.clock = clock;
+    }
+
+    @Override
+    public String getName() {
+        return "http";
+    }
+
+    @Override
+    public void sendMaintenanceScheduled(MaintenanceEvent event) {
+        post(payload("scheduled", event));
+    }
+
+    @Override
+    public void sendMaintenanceStarted(MaintenanceEvent event) {
+        post(payload("started", event));
+    }
+
+    @Override
+    public void sendMaintenanceEnded(MaintenanceEvent event) {
+        post(payload("ended", event));
+    }
+
+    @Override
+    public void sendMaintenanceUpdated(MaintenanceEvent oldEvent, MaintenanceEvent newEvent) {
+        JsonObject payload = payload("updated", newEvent);
+        JsonObject previous = new JsonObject();
+        previous.addProperty("start", oldEvent.getStartTime().toString());
+        previous.addProperty("end", oldEvent.getEndTime().toString());
+        payload.add("previous", previous);
+        post(payload);
+    }
+
+    @Override
+    public void sendMaintenanceCancelled(MaintenanceEvent event) {
+        post(payload("cancelled", event));
+    }
+
+    private JsonObject payload(String type, MaintenanceEvent event) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("type", type);
+        payload.addProperty("id", event.getId());
+        payload.addProperty("title", event.getTitle());
+        payload.addProperty("description", event.getDescription());
+        payload.addProperty("start", event.getStartTime().toString());
+        payload.addProperty("end", event.getEndTime().toString());
+        payload.addProperty("timestamp", clock.instant().toString());
+        return payload;
+    }
+
+    private void post(JsonObject payload) {
+        Request request = new Request.Builder()
+                .url(url)
+                .post(RequestBody.create(payload.toString(), JSON))
+                .build();
+
+        // 失敗は配信側で通知先ごとに記録される
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IllegalStateException("HTTP notification failed. Status: " + response.code());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
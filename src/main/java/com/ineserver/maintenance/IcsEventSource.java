@@ -0,0 +1,353 @@
+package com.ineserver.maintenance;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// ICS（iCalendar）形式のファイルまたはURLからメンテナンスイベントを読み込む
+// ファイルの場合はWatchServiceで変更を検知したときだけ読み込み直す（定期的な確認は行わない）
+// 読み込んだイベントはGoogleカレンダーと同じ同期処理へ渡す
+public class IcsEventSource implements MaintenanceEventSource {
+
+    // ICSのイベントIDに付ける接頭辞（Googleカレンダーのイベントと区別する）
+    public static final String ID_PREFIX = "ics:";
+    // この期間内に開始するイベントのみをメンテナンスとして扱う
+    private static final long SYNC_WINDOW_MILLIS = 30L * 24 * 60 * 60 * 1000;
+    // 書き込み途中のファイルを読まないよう、最後の変更からこの時間待ってから読み込む
+    private static final long SETTLE_MILLIS = 500;
+
+    private final ConfigManager configManager;
+    private final MaintenanceManager maintenanceManager;
+    private final PluginExecutors executors;
+    private final OkHttpClient httpClient;
+    private final Path dataDirectory;
+    private final Logger logger;
+
+    private volatile boolean initialized;
+    private volatile boolean stopped;
+    private Path file;
+    private String url;
+    private WatchService watchService;
+    private Thread watchThread;
+    private ScheduledFuture<?> urlRefresh;
+    private volatile ScheduledFuture<?> windowReload;
+
+    // URLの条件付き取得用
+    private String etag;
+    private String lastModified;
+    // 期間外だったイベントが期間内に入る時刻（その時刻に内容が変わらなくても読み込み直す）
+    private long nextWindowEntryMillis = Long.MAX_VALUE;
+
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder notModifiedCount = new LongAdder();
+    private volatile long lastLoadMillis = -1;
+    private volatile int parsedEventCount;
+    private volatile int forwardedEventCount;
+    private volatile String lastError;
+
+    public IcsEventSource(ConfigManager configManager, MaintenanceManager maintenanceManager,
+            PluginExecutors executors, OkHttpClient httpClient, Path dataDirectory, Logger logger) {
+        this.configManager = configManager;
+        this.maintenanceManager = maintenanceManager;
+        this.executors = executors;
+        this.httpClient = httpClient;
+        this.dataDirectory = dataDirectory;
+        this.logger = logger;
+    }
+
+    public static boolean isIcsEventId(String eventId) {
+        return eventId.startsWith(ID_PREFIX);
+    }
+
+    @Override
+    public String getName() {
+        return "ics";
+    }
+
+    @Override
+    public void initialize() {
+        if (!configManager.isIcsEnabled()) {
+            logger.info("ICS event source is disabled in configuration.");
+            return;
+        }
+
+        initialized = true;
+        String configuredUrl = configManager.getIcsUrl();
+        if (!configuredUrl.isEmpty()) {
+            url = configuredUrl;
+            startUrlRefresh();
+        } else {
+            file = dataDirectory.resolve(configManager.getIcsFile());
+            startFileWatch();
+        }
+    }
+
+    // URLは変更を検知できないため、設定された間隔で条件付き取得を行う
+    private void startUrlRefresh() {
+        int refreshMinutes = configManager.getIcsUrlRefreshMinutes();
+        urlRefresh = executors.getTimers().scheduleWithFixedDelay(this::submitReload,
+                0, refreshMinutes, TimeUnit.MINUTES);
+        logger.info("Started ICS calendar refresh from " + url + " (interval: " + refreshMinutes + " minutes)");
+    }
+
+    // 監視は変更を待ってブロックし続けるため、共有の実行器ではなく専用のデーモンスレッドで行う
+    private void startFileWatch() {
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            logger.error("Failed to watch ICS file " + file + "; it will only be loaded once", e);
+            watchService = null;
+        }
+
+        if (watchService == null) {
+            submitReload();
+            return;
+        }
+
+        watchThread = new Thread(() -> {
+            reload();
+            watchFile();
+        }, "maintenance-ics-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        logger.info("Watching ICS calendar file " + file);
+    }
+
+    private void watchFile() {
+        Path fileName = file.getFileName();
+        while (!stopped) {
+            try {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+                }
+                if (!key.reset()) {
+                    logger.warn("ICS file directory is no longer accessible; stopped watching " + file);
+                    return;
+                }
+                if (!changed) {
+                    continue;
+                }
+
+                // 保存が終わるまで続けて届く変更通知をまとめる
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+                reload();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+        }
+    }
+
+    private void submitReload() {
+        try {
+            executors.getIo().execute(this::reload);
+        } catch (RejectedExecutionException e) {
+            logger.debug("ICS calendar reload was not scheduled (shutting down)");
+        }
+    }
+
+    // ファイル監視・URL取得・期間への出入りによる読み込みが重ならないようにする
+    private synchronized void reload() {
+        if (stopped) {
+            return;
+        }
+        if (url != null) {
+            loadUrl();
+        } else {
+            loadFile();
+        }
+    }
+
+    private void loadFile() {
+        if (!Files.exists(file)) {
+            // 保存時の一時的な削除で予定を全てキャンセルしないよう、現在の予定を維持する
+            logger.warn("ICS file not found: " + file + "; keeping the current schedule");
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            load(reader, file.toString());
+        } catch (IOException e) {
+            lastError = e.getMessage();
+            logger.error("Failed to load ICS file " + file, e);
+        }
+    }
+
+    private void loadUrl() {
+        Request.Builder builder = new Request.Builder().url(url).get();
+        // 期間内に入るイベントがある場合は、内容が変わっていなくても読み込み直す
+        if (maintenanceManager.getClock().millis() < nextWindowEntryMillis) {
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+        }
+
+        try (Response response = httpClient.newCall(builder.build()).execute()) {
+            if (response.code() == 304) {
+                notModifiedCount.increment();
+                return;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("Unexpected HTTP status " + response.code());
+            }
+
+            try (Reader reader = new InputStreamReader(response.body().byteStream(), StandardCharsets.UTF_8)) {
+                load(reader, url);
+            }
+            etag = response.header("ETag");
+            lastModified = response.header("Last-Modified");
+        } catch (IOException e) {
+            lastError = e.getMessage();
+            logger.error("Failed to fetch ICS calendar from " + url, e);
+        }
+    }
+
+    // 読みながら同期対象期間内のイベントだけを残す（期間外のイベントは保持しない）
+    private void load(Reader reader, String origin) throws IOException {
+        long startedAt = System.nanoTime();
+        Instant now = maintenanceManager.getClock().instant();
+        Instant windowEnd = now.plusMillis(SYNC_WINDOW_MILLIS);
+
+        List<MaintenanceEvent> events = new ArrayList<>();
+        long[] nextEntry = {Long.MAX_VALUE};
+        IcsParser parser = new IcsParser(ZoneId.systemDefault());
+        parser.parse(reader, event -> {
+            if (!event.getEndTime().isAfter(now)) {
+                return;
+            }
+            if (event.getStartTime().isBefore(windowEnd)) {
+                events.add(new MaintenanceEvent(ID_PREFIX + event.getId(), event.getTitle(),
+                        event.getDescription(), event.getStartTime(), event.getEndTime()));
+            } else {
+                nextEntry[0] = Math.min(nextEntry[0], event.getStartTime().toEpochMilli() - SYNC_WINDOW_MILLIS);
+            }
+        });
+
+        maintenanceManager.syncSourceEvents(events, IcsEventSource::isIcsEventId);
+
+        loadCount.increment();
+        lastLoadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        parsedEventCount = parser.getEventCount();
+        forwardedEventCount = events.size();
+        lastError = null;
+        scheduleWindowReload(nextEntry[0]);
+
+        logger.info("ICS calendar loaded from " + origin + " (" + parser.getEventCount() + " events, "
+                + events.size() + " upcoming, " + lastLoadMillis + "ms)");
+        if (parser.getRecurringCount() > 0 || parser.getInvalidCount() > 0) {
+            logger.warn("ICS calendar contains " + parser.getRecurringCount()
+                    + " recurring events (only the first occurrence is used) and "
+                    + parser.getInvalidCount() + " events with invalid dates");
+        }
+    }
+
+    private void scheduleWindowReload(long atMillis) {
+        ScheduledFuture<?> previous = windowReload;
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        nextWindowEntryMillis = atMillis;
+        if (atMillis == Long.MAX_VALUE || stopped) {
+            return;
+        }
+
+        long delayMillis = Math.max(0, atMillis - maintenanceManager.getClock().millis());
+        try {
+            windowReload = executors.getTimers().schedule(this::submitReload, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.debug("ICS calendar reload was not scheduled (shutting down)");
+        }
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    @Override
+    public void shutdown() {
+        stopped = true;
+        if (urlRefresh != null) {
+            urlRefresh.cancel(false);
+        }
+        ScheduledFuture<?> reload = windowReload;
+        if (reload != null) {
+            reload.cancel(false);
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close ICS file watcher: " + e.getMessage());
+            }
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+
+    // 読み込み元（ファイルのパスまたはURL）
+    public String getLocation() {
+        return url != null ? url : String.valueOf(file);
+    }
+
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    public long getNotModifiedCount() {
+        return notModifiedCount.sum();
+    }
+
+    // 前回の読み込みにかかった時間（未読み込みの場合は-1）
+    public long getLastLoadMillis() {
+        return lastLoadMillis;
+    }
+
+    public int getParsedEventCount() {
+        return parsedEventCount;
+    }
+
+    public int getForwardedEventCount() {
+        return forwardedEventCount;
+    }
+
+    // 直近の失敗理由（成功した場合はnull）
+    public String getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,275 @@
+package com.ineserver.maintenance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// iCalendar（RFC 5545）形式のテキストを1行ずつ読み、VEVENTごとにイベントを渡す
+// ファイル全体を保持しないため、数万件のイベントを含むカレンダーでも使用メモリは1件分で済む
+// 繰り返しルール（RRULE）は展開せず、最初の回のみを扱う
+public class IcsParser {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    // TZIDのない日時・終日イベントに使うタイムゾーン
+    private final ZoneId defaultZone;
+
+    private int eventCount;
+    private int cancelledCount;
+    private int recurringCount;
+    private int invalidCount;
+
+    public IcsParser(ZoneId defaultZone) {
+        this.defaultZone = defaultZone;
+    }
+
+    // 取消済み・日時が不正なイベントは渡さない
+    public void parse(Reader reader, Consumer<MaintenanceEvent> consumer) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        StringBuilder pending = null;
+        EventBuilder event = null;
+        // VEVENT内のVALARMなど、読み飛ばす入れ子の深さ
+        int nestedDepth = 0;
+
+        String line;
+        while (true) {
+            line = lines.readLine();
+            // 空白またはタブで始まる行は前の行の続き（折り返し）
+            if (line != null && pending != null && !line.isEmpty()
+                    && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+                pending.append(line, 1, line.length());
+                continue;
+            }
+
+            if (pending != null) {
+                String content = pending.toString();
+                if (content.equals("BEGIN:VEVENT")) {
+                    event = new EventBuilder();
+                    nestedDepth = 0;
+                } else if (event != null && content.startsWith("BEGIN:")) {
+                    nestedDepth++;
+                } else if (event != null && content.startsWith("END:")) {
+                    if (nestedDepth > 0) {
+                        nestedDepth--;
+                    } else if (content.equals("END:VEVENT")) {
+                        emit(event, consumer);
+                        event = null;
+                    }
+                } else if (event != null && nestedDepth == 0) {
+                    event.property(content);
+                }
+            }
+
+            if (line == null) {
+                break;
+            }
+            pending = new StringBuilder(line);
+        }
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public int getCancelledCount() {
+        return cancelledCount;
+    }
+
+    public int getRecurringCount() {
+        return recurringCount;
+    }
+
+    public int getInvalidCount() {
+        return invalidCount;
+    }
+
+    private void emit(EventBuilder event, Consumer<MaintenanceEvent> consumer) {
+        eventCount++;
+        if ("CANCELLED".equalsIgnoreCase(event.status)) {
+            cancelledCount++;
+            return;
+        }
+        if (event.recurring) {
+            recurringCount++;
+        }
+        if (event.start == null) {
+            invalidCount++;
+            return;
+        }
+
+        try {
+            Instant start = parseDateTime(event.start, event.startParams);
+            Instant end;
+            if (event.end != null) {
+                end = parseDateTime(event.end, event.endParams);
+            } else if (event.duration != null) {
+                end = start.plus(parseDuration(event.duration));
+            } else if (isDate(event.start, event.startParams)) {
+                // 終了のない終日イベントは1日間
+                end = start.plus(Duration.ofDays(1));
+            } else {
+                end = start;
+            }
+
+            String uid = event.uid != null ? event.uid : Integer.toHexString((event.summary + start).hashCode());
+            // 繰り返しの特定の回を変更したものは同じUIDを持つため、対象の回で区別する
+            String id = event.recurrenceId != null ? uid + "_" + event.recurrenceId : uid;
+            consumer.accept(new MaintenanceEvent(id,
+                    event.summary != null ? event.summary : "",
+                    event.description != null ? event.description : "",
+                    start, end));
+        } catch (DateTimeException | IllegalArgumentException e) {
+            invalidCount++;
+        }
+    }
+
+    private Instant parseDateTime(String value, Map<String, String> params) {
+        if (isDate(value, params)) {
+            return LocalDate.parse(value, DATE).atStartOfDay(defaultZone).toInstant();
+        }
+        if (value.endsWith("Z")) {
+            return LocalDateTime.parse(value.substring(0, value.length() - 1), DATE_TIME)
+                    .toInstant(ZoneOffset.UTC);
+        }
+        String tzid = params.get("TZID");
+        ZoneId zone = defaultZone;
+        if (tzid != null) {
+            try {
+                zone = ZoneId.of(tzid);
+            } catch (DateTimeException e) {
+                // Windows形式などの独自のタイムゾーン名は既定のタイムゾーンとして扱う
+            }
+        }
+        return LocalDateTime.parse(value, DATE_TIME).atZone(zone).toInstant();
+    }
+
+    private static boolean isDate(String value, Map<String, String> params) {
+        return "DATE".equalsIgnoreCase(params.get("VALUE")) || value.length() == 8;
+    }
+
+    // 週単位（P1W）はDuration.parseが扱えないため日数に変換する
+    private static Duration parseDuration(String value) {
+        String duration = value.startsWith("+") ? value.substring(1) : value;
+        if (duration.endsWith("W")) {
+            long weeks = Long.parseLong(duration.substring(duration.indexOf('P') + 1, duration.length() - 1));
+            Duration result = Duration.ofDays(weeks * 7);
+            return duration.startsWith("-") ? result.negated() : result;
+        }
+        return Duration.parse(duration);
+    }
+
+    // TEXT値のエスケープ（\n \, \; \\）を戻す
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(next == 'n' || next == 'N' ? '\n' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    // 1つのVEVENTから読み取った値
+    private static final class EventBuilder {
+        private String uid;
+        private String summary;
+        private String description;
+        private String status;
+        private String start;
+        private String end;
+        private String duration;
+        private String recurrenceId;
+        private boolean recurring;
+        private Map<String, String> startParams = Map.of();
+        private Map<String, String> endParams = Map.of();
+
+        // 「名前;パラメータ=値:値」の形式（パラメータ内の引用符で囲まれた部分の:は区切りではない）
+        private void property(String content) {
+            int colon = -1;
+            boolean quoted = false;
+            for (int i = 0; i < content.length(); i++) {
+                char c = content.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == ':' && !quoted) {
+                    colon = i;
+                    break;
+                }
+            }
+            if (colon < 0) {
+                return;
+            }
+
+            String[] nameAndParams = content.substring(0, colon).split(";");
+            String name = nameAndParams[0].toUpperCase(Locale.ROOT);
+            String value = content.substring(colon + 1);
+
+            switch (name) {
+                case "UID":
+                    uid = value;
+                    break;
+                case "SUMMARY":
+                    summary = unescape(value);
+                    break;
+                case "DESCRIPTION":
+                    description = unescape(value);
+                    break;
+                case "STATUS":
+                    status = value;
+                    break;
+                case "DTSTART":
+                    start = value;
+                    startParams = params(nameAndParams);
+                    break;
+                case "DTEND":
+                    end = value;
+                    endParams = params(nameAndParams);
+                    break;
+                case "DURATION":
+                    duration = value;
+                    break;
+                case "RECURRENCE-ID":
+                    recurrenceId = value;
+                    break;
+                case "RRULE":
+                case "RDATE":
+                    recurring = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private static Map<String, String> params(String[] nameAndParams) {
+            Map<String, String> params = new HashMap<>();
+            for (int i = 1; i < nameAndParams.length; i++) {
+                int equals = nameAndParams[i].indexOf('=');
+                if (equals > 0) {
+                    params.put(nameAndParams[i].substring(0, equals).toUpperCase(Locale.ROOT),
+                            nameAndParams[i].substring(equals + 1).replace("\"", ""));
+                }
+            }
+            return params;
+        }
+    }
+}
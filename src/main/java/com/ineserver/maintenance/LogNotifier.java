@@ -0,0 +1,51 @@
+package com.ineserver.maintenance;
+
+import org.slf4j.Logger;
+
+// メンテナンスの状態変化をプロキシのログに出力する通知先
+public class LogNotifier implements MaintenanceNotifier {
+
+    private final Logger logger;
+
+    public LogNotifier(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public String getName() {
+        return "log";
+    }
+
+    @Override
+    public void sendMaintenanceScheduled(MaintenanceEvent event) {
+        logger.info("[Maintenance] Scheduled: " + describe(event));
+    }
+
+    @Override
+    public void sendMaintenanceStarted(MaintenanceEvent event) {
+        logger.info("[Maintenance] Started: " + describe(event));
+    }
+
+    @Override
+    public void sendMaintenanceEnded(MaintenanceEvent event) {
+        logger.info("[Maintenance] Ended: " + describe(event));
+    }
+
+    @Override
+    public void sendMaintenanceUpdated(MaintenanceEvent oldEvent, MaintenanceEvent newEvent) {
+        logger.info("[Maintenance] Updated: " + describe(newEvent) + " (was "
+                + MessageTemplates.formatDiscordDateTime(oldEvent.getStartTime()) + " 〜 "
+                + MessageTemplates.formatDiscordDateTime(oldEvent.getEndTime()) + ")");
+    }
+
+    @Override
+    public void sendMaintenanceCancelled(MaintenanceEvent event) {
+        logger.info("[Maintenance] Cancelled: " + describe(event));
+    }
+
+    private static String describe(MaintenanceEvent event) {
+        return event.getTitle() + " ("
+                + MessageTemplates.formatDiscordDateTime(event.getStartTime()) + " 〜 "
+                + MessageTemplates.formatDiscordDateTime(event.getEndTime()) + ")";
+    }
+}
@@ -10,9 +10,19 @@ import net.kyori.adventure.text.format.NamedTextColor;
 public class MaintenanceCommand {
 
     private final MaintenanceManager maintenanceManager;
+    private final ServerPingListener serverPingListener;
+    private final NotificationDispatcher notificationDispatcher;
+    private final GoogleCalendarService googleCalendarService;
+    private final IcsEventSource icsEventSource;
 
-    public MaintenanceCommand(MaintenanceManager maintenanceManager) {
+    public MaintenanceCommand(MaintenanceManager maintenanceManager, ServerPingListener serverPingListener,
+            NotificationDispatcher notificationDispatcher, GoogleCalendarService googleCalendarService,
+            IcsEventSource icsEventSource) {
         this.maintenanceManager = maintenanceManager;
+        this.serverPingListener = serverPingListener;
+        this.notificationDispatcher = notificationDispatcher;
+        this.googleCalendarService = googleCalendarService;
+        this.icsEventSource = icsEventSource;
     }
 
     public BrigadierCommand createCommand() {
@@ -25,6 +35,7 @@ public class MaintenanceCommand {
                     source.sendMessage(Component.text("/maintenance end - メンテナンスを終了", NamedTextColor.GRAY));
                     source.sendMessage(Component.text("/maintenance status - メンテナンス状態を確認", NamedTextColor.GRAY));
                     source.sendMessage(Component.text("/maintenance schedule - 次回メンテナンス予定を確認", NamedTextColor.GRAY));
+                    source.sendMessage(Component.text("/maintenance stats - 内部統計情報を確認", NamedTextColor.GRAY));
                     return Command.SINGLE_SUCCESS;
                 })
                 .then(LiteralArgumentBuilder.<CommandSource>literal("end")
@@ -46,14 +57,172 @@ public class MaintenanceCommand {
                         .executes(context -> {
                             CommandSource source = context.getSource();
 
-                            if (maintenanceManager.isMaintenanceMode()) {
+                            MaintenancePhase phase = maintenanceManager.getState().getPhase();
+                            if (phase == MaintenancePhase.DRAINING) {
+                                source.sendMessage(Component.text("メンテナンス状態: ", NamedTextColor.YELLOW)
+                                        .append(Component.text("実施中（プレイヤー切断中）", NamedTextColor.RED)));
+                            } else if (phase == MaintenancePhase.ACTIVE) {
                                 source.sendMessage(Component.text("メンテナンス状態: ", NamedTextColor.YELLOW)
                                         .append(Component.text("実施中", NamedTextColor.RED)));
+                            } else if (phase == MaintenancePhase.REOPENING) {
+                                source.sendMessage(Component.text("メンテナンス状態: ", NamedTextColor.YELLOW)
+                                        .append(Component.text("終了処理中", NamedTextColor.GOLD)));
                             } else {
                                 source.sendMessage(Component.text("メンテナンス状態: ", NamedTextColor.YELLOW)
                                         .append(Component.text("通常稼働中", NamedTextColor.GREEN)));
                             }
 
+                            return Command.SINGLE_SUCCESS;
+                        }))
+                .then(LiteralArgumentBuilder.<CommandSource>literal("stats")
+                        .requires(source -> source.hasPermission("maintenance.admin"))
+                        .executes(context -> {
+                            CommandSource source = context.getSource();
+                            PermissionCache cache = maintenanceManager.getPermissionCache();
+
+                            source.sendMessage(Component.text("[権限キャッシュ]", NamedTextColor.YELLOW));
+                            source.sendMessage(Component.text(String.format(
+                                    "ヒット: %d / ミス: %d (ヒット率 %.1f%%)",
+                                    cache.getHitCount(), cache.getMissCount(), cache.getHitRate() * 100),
+                                    NamedTextColor.GRAY));
+                            source.sendMessage(Component.text(String.format(
+                                    "エントリ数: %d / 無効化: %d / 判定中の変更で破棄: %d",
+                                    cache.size(), cache.getInvalidationCount(), cache.getRejectedPutCount()),
+                                    NamedTextColor.GRAY));
+
+                            source.sendMessage(Component.text("[通知]", NamedTextColor.YELLOW));
+                            source.sendMessage(Component.text(String.format(
+                                    "通知対象のプレイヤー: %d / 待機中のタイマー: %d",
+                                    maintenanceManager.getNotificationAudience().size(),
+                                    maintenanceManager.getTimeline().getPendingCount()),
+                                    NamedTextColor.GRAY));
+
+                            StagedEvictor evictor = maintenanceManager.getStagedEvictor();
+                            source.sendMessage(Component.text("[段階切断]", NamedTextColor.YELLOW));
+                            source.sendMessage(Component.text(String.format(
+                                    "%s: %d/%d / 前回の所要時間: %s",
+                                    evictor.isRunning() ? "実行中" : "停止中",
+                                    evictor.getEvictedCount(), evictor.getTotalCount(),
+                                    evictor.getLastDrainMillis() < 0 ? "なし" : evictor.getLastDrainMillis() + "ms"),
+                                    NamedTextColor.GRAY));
+
+                            source.sendMessage(Component.text("[サーバーリストPing]", NamedTextColor.YELLOW));
+                            source.sendMessage(Component.text(String.format(
+                                    "応答: %d / 制限: %d",
+                                    serverPingListener.getServedPingCount(),
+                                    serverPingListener.getThrottledPingCount()),
+                                    NamedTextColor.GRAY));
+                            PingRateLimiter rateLimiter = serverPingListener.getRateLimiter();
+                            if (rateLimiter != null) {
+                                source.sendMessage(Component.text(String.format(
+                                        "記録中のアドレス: %d / 入れ替え: %d",
+                                        rateLimiter.getTrackedAddresses(), rateLimiter.getEvictions()),
+                                        NamedTextColor.GRAY));
+                            }
+
+                            source.sendMessage(Component.text("[通知先]", NamedTextColor.YELLOW));
+                            for (NotificationDispatcher.Sink sink : notificationDispatcher.getSinks()) {
+                                source.sendMessage(Component.text(String.format(
+                                        "%s: 待機 %d / 呼び出し %d / 失敗 %d / 平均 %.1fms / 最大 %dms",
+                                        sink.getName(), sink.getPendingCount(), sink.getCallCount(),
+                                        sink.getFailureCount(), sink.getAverageMillis(), sink.getMaxMillis()),
+                                        NamedTextColor.GRAY));
+                                if (sink.getNotifier() instanceof DiscordNotifier) {
+                                    DiscordNotifier discord = (DiscordNotifier) sink.getNotifier();
+                                    DiscordDeliveryQueue discordQueue = discord.getDeliveryQueue();
+                                    source.sendMessage(Component.text(String.format(
+                                            "  送信キュー: 待機 %d / 未ack %d / 送信 %d件 (%dメッセージ) / 破棄 %d",
+                                            discordQueue.getQueueDepth(), discord.getOutbox().getPendingCount(),
+                                            discordQueue.getSentEmbedCount(), discordQueue.getSentMessageCount(),
+                                            discordQueue.getDroppedCount()),
+                                            NamedTextColor.GRAY));
+                                    source.sendMessage(Component.text(String.format(
+                                            "  編集 %d / 集約 %d / 再送 %d / レート制限 %d / 平均 %.1fms / 最大 %dms",
+                                            discordQueue.getEditedMessageCount(), discordQueue.getCoalescedCount(),
+                                            discordQueue.getRetryCount(), discordQueue.getRateLimitedCount(),
+                                            discordQueue.getAverageSendMillis(), discordQueue.getMaxSendMillis()),
+                                            NamedTextColor.GRAY));
+                                }
+                            }
+
+                            if (googleCalendarService.isInitialized()) {
+                                source.sendMessage(Component.text("[Googleカレンダー]", NamedTextColor.YELLOW));
+                                source.sendMessage(Component.text(String.format(
+                                        "全件同期: %d / 差分同期: %d",
+                                        googleCalendarService.getFullSyncCount(),
+                                        googleCalendarService.getIncrementalSyncCount()),
+                                        NamedTextColor.GRAY));
+                                source.sendMessage(Component.text(String.format(
+                                        "304応答: %d/%d (%.1f%%) / 受信: %dバイト / 削減: %dバイト",
+                                        googleCalendarService.getNotModifiedCount(),
+                                        googleCalendarService.getConditionalPollCount(),
+                                        googleCalendarService.getNotModifiedRatio() * 100,
+                                        googleCalendarService.getBytesReceived(),
+                                        googleCalendarService.getBytesSaved()),
+                                        NamedTextColor.GRAY));
+                                long lastSuccessAge = googleCalendarService.getLastSuccessAgeMillis();
+                                source.sendMessage(Component.text(String.format(
+                                        "チェック間隔: %d秒 / 前回の成功: %s / 連続失敗: %d%s",
+                                        googleCalendarService.getCurrentIntervalMillis() / 1000,
+                                        lastSuccessAge < 0 ? "なし" : lastSuccessAge / 1000 + "秒前",
+                                        googleCalendarService.getConsecutiveFailures(),
+                                        googleCalendarService.isStale() ? " (予定が古い可能性あり)" : ""),
+                                        googleCalendarService.isStale() ? NamedTextColor.RED : NamedTextColor.GRAY));
+                                for (GoogleCalendarService.Source calendar : googleCalendarService.getSources()) {
+                                    source.sendMessage(Component.text(String.format(
+                                            "  %s: イベント %d / 取得 %d / 失敗 %d (連続 %d) / 前回 %s / 平均 %.1fms / 最大 %dms",
+                                            calendar.getCalendarId(), calendar.getEventCount(),
+                                            calendar.getFetchCount(), calendar.getFailureCount(),
+                                            calendar.getConsecutiveFailures(),
+                                            calendar.getLastFetchMillis() < 0 ? "なし" : calendar.getLastFetchMillis() + "ms",
+                                            calendar.getAverageFetchMillis(), calendar.getMaxFetchMillis()),
+                                            calendar.getLastError() != null ? NamedTextColor.RED : NamedTextColor.GRAY));
+                                    if (calendar.getLastError() != null) {
+                                        source.sendMessage(Component.text("    直近のエラー: " + calendar.getLastError(),
+                                                NamedTextColor.RED));
+                                    }
+                                }
+                                source.sendMessage(Component.text(String.format(
+                                        "重複して除外したイベント: %d", googleCalendarService.getDuplicateCount()),
+                                        NamedTextColor.GRAY));
+                                source.sendMessage(Component.text(String.format(
+                                        "変更通知: %s / 受信 %d / 拒否 %d",
+                                        googleCalendarService.isPushActive() ? "有効" : "無効（ポーリング）",
+                                        googleCalendarService.getPushNotificationCount(),
+                                        googleCalendarService.getRejectedPushCount()),
+                                        NamedTextColor.GRAY));
+                            }
+
+                            if (icsEventSource.isInitialized()) {
+                                source.sendMessage(Component.text("[ICS]", NamedTextColor.YELLOW));
+                                source.sendMessage(Component.text(String.format(
+                                        "%s: 読み込み %d / 304応答 %d / イベント %d (期間内 %d) / 前回 %s",
+                                        icsEventSource.getLocation(), icsEventSource.getLoadCount(),
+                                        icsEventSource.getNotModifiedCount(), icsEventSource.getParsedEventCount(),
+                                        icsEventSource.getForwardedEventCount(),
+                                        icsEventSource.getLastLoadMillis() < 0 ? "なし" : icsEventSource.getLastLoadMillis() + "ms"),
+                                        NamedTextColor.GRAY));
+                                if (icsEventSource.getLastError() != null) {
+                                    source.sendMessage(Component.text("  直近のエラー: " + icsEventSource.getLastError(),
+                                            NamedTextColor.RED));
+                                }
+                            }
+
+                            PluginExecutors executors = maintenanceManager.getExecutors();
+                            source.sendMessage(Component.text("[実行環境]", NamedTextColor.YELLOW));
+                            source.sendMessage(Component.text(String.format(
+                                    "タイマー: 待機 %d / 完了 %d / 平均 %.1fms / 最大 %dms",
+                                    executors.getTimerQueueDepth(), executors.getTimerCompletedCount(),
+                                    executors.getTimerAverageMillis(), executors.getTimerMaxMillis()),
+                                    NamedTextColor.GRAY));
+                            source.sendMessage(Component.text(String.format(
+                                    "I/O (%s): 待機 %d / 実行中 %d / 完了 %d / 平均待ち %.1fms / 平均 %.1fms / 最大 %dms",
+                                    executors.isVirtualThreads() ? "仮想スレッド" : "スレッドプール",
+                                    executors.getIoQueueDepth(), executors.getIoRunningCount(),
+                                    executors.getIoCompletedCount(), executors.getIoAverageWaitMillis(),
+                                    executors.getIoAverageMillis(), executors.getIoMaxMillis()),
+                                    NamedTextColor.GRAY));
+
                             return Command.SINGLE_SUCCESS;
                         }))
                 .then(LiteralArgumentBuilder.<CommandSource>literal("schedule")
@@ -66,6 +235,11 @@ public class MaintenanceCommand {
                                 net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer serializer = net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer
                                         .legacySection();
                                 source.sendMessage(serializer.deserialize(scheduleInfo));
+                                if (googleCalendarService.isStale()) {
+                                    source.sendMessage(Component.text(
+                                            "※カレンダーの取得に失敗しているため、予定が最新でない可能性があります。",
+                                            NamedTextColor.RED));
+                                }
                             } else {
                                 source.sendMessage(Component.text("現在、予定されているメンテナンスはありません。", NamedTextColor.GRAY));
                             }
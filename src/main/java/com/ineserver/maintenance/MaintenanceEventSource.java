@@ -0,0 +1,16 @@
+package com.ineserver.maintenance;
+
+// メンテナンスイベントの取得元（Googleカレンダー、ICSファイルなど）
+// 取得したイベントはメンテナンス管理側の同期処理へ渡す
+public interface MaintenanceEventSource {
+
+    // 統計表示やログに使う取得元の名前
+    String getName();
+
+    // 設定で無効な場合は何もしない
+    void initialize();
+
+    boolean isInitialized();
+
+    void shutdown();
+}
@@ -0,0 +1,138 @@
+package com.ineserver.maintenance;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// スケジュール済みメンテナンスの保管場所
+// IDによるハッシュ索引と開始時刻順のスキップリストを併用し、追加・更新・削除をO(log n)で行う
+// 次に開始するイベントは書き込み時に更新するカーソルに保持し、時刻が次の開始を過ぎるまではO(1)で返す
+public class MaintenanceEventStore {
+
+    private static final Comparator<MaintenanceEvent> START_TIME_ORDER = Comparator
+            .comparing(MaintenanceEvent::getStartTime)
+            .thenComparing(MaintenanceEvent::getId);
+
+    private final Map<String, MaintenanceEvent> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<MaintenanceEvent> byStartTime = new ConcurrentSkipListSet<>(START_TIME_ORDER);
+    private final Object writeLock = new Object();
+
+    // 開始時刻順の一覧（変更があるまで使い回す）
+    private volatile List<MaintenanceEvent> snapshot = Collections.emptyList();
+    // nextStartingAfter() の直近の結果（更新はwriteLock内で行う）
+    private volatile NextCursor nextCursor;
+
+    public MaintenanceEvent get(String id) {
+        return byId.get(id);
+    }
+
+    public boolean contains(String id) {
+        return byId.containsKey(id);
+    }
+
+    // 追加または同じIDのイベントを置き換え、以前のイベントを返す
+    public MaintenanceEvent put(MaintenanceEvent event) {
+        synchronized (writeLock) {
+            MaintenanceEvent previous = byId.put(event.getId(), event);
+            if (previous != null) {
+                byStartTime.remove(previous);
+            }
+            byStartTime.add(event);
+            snapshot = null;
+            updateCursor(previous, event);
+            return previous;
+        }
+    }
+
+    public MaintenanceEvent remove(String id) {
+        synchronized (writeLock) {
+            MaintenanceEvent previous = byId.remove(id);
+            if (previous != null) {
+                byStartTime.remove(previous);
+                snapshot = null;
+                updateCursor(previous, null);
+            }
+            return previous;
+        }
+    }
+
+    // 指定時刻より後に開始する最初のイベント
+    // 前回の問い合わせ以降に時刻が次の開始を過ぎていなければ、スキップリストを辿らずに返す
+    public MaintenanceEvent nextStartingAfter(Instant time) {
+        NextCursor cursor = nextCursor;
+        if (cursor != null && cursor.covers(time)) {
+            return cursor.next;
+        }
+
+        synchronized (writeLock) {
+            Instant after = time.plusNanos(1);
+            MaintenanceEvent next = byStartTime.ceiling(new MaintenanceEvent("", "", "", after, after));
+            nextCursor = new NextCursor(time, next);
+            return next;
+        }
+    }
+
+    // 書き込みに合わせてカーソルを更新する（writeLock内で呼ぶ）
+    private void updateCursor(MaintenanceEvent removed, MaintenanceEvent added) {
+        NextCursor cursor = nextCursor;
+        if (cursor == null) {
+            return;
+        }
+        // カーソルが指していたイベントが消えた場合は、次の問い合わせで求め直す
+        if (removed != null && removed == cursor.next) {
+            nextCursor = null;
+            return;
+        }
+        if (added != null && added.getStartTime().isAfter(cursor.from)
+                && (cursor.next == null || START_TIME_ORDER.compare(added, cursor.next) < 0)) {
+            nextCursor = new NextCursor(cursor.from, added);
+        }
+    }
+
+    // 開始時刻順の一貫したスナップショット
+    public List<MaintenanceEvent> snapshot() {
+        List<MaintenanceEvent> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (writeLock) {
+            if (snapshot == null) {
+                snapshot = List.copyOf(byStartTime);
+            }
+            return snapshot;
+        }
+    }
+
+    public Set<String> ids() {
+        return Set.copyOf(byId.keySet());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    // fromより後に開始する最初のイベントがnext（ない場合はnull）
+    // from以降、nextの開始より前の時刻に対する問い合わせにはnextがそのまま答えになる
+    private static final class NextCursor {
+        private final Instant from;
+        private final MaintenanceEvent next;
+
+        private NextCursor(Instant from, MaintenanceEvent next) {
+            this.from = from;
+            this.next = next;
+        }
+
+        private boolean covers(Instant time) {
+            return !time.isBefore(from) && (next == null || time.isBefore(next.getStartTime()));
+        }
+    }
+}
@@ -3,143 +3,209 @@ package com.ineserver.maintenance;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import net.luckperms.api.LuckPerms;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.EventSubscription;
+import net.luckperms.api.event.node.NodeMutateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
 import net.luckperms.api.model.user.User;
+import net.luckperms.api.node.Node;
 import org.slf4j.Logger;
 
+import java.time.Clock;
 import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 public class MaintenanceManager {
 
     private final ProxyServer server;
     private final ConfigManager configManager;
-    private final DiscordNotifier discordNotifier;
+    private final MessageTemplates templates;
+    private final MaintenanceNotifier notifier;
     private final Logger logger;
+    private final Clock clock;
     private final MaintenanceStateManager stateManager;
     private LuckPerms luckPerms;
+    private final PermissionCache permissionCache;
+    private final List<EventSubscription<?>> luckPermsSubscriptions = new ArrayList<>();
+
+    private final MaintenanceEventStore eventStore = new MaintenanceEventStore();
+    // メンテナンス状態（段階と対象イベント）はCASでのみ遷移させる
+    private final AtomicReference<MaintenanceSnapshot> state = new AtomicReference<>(MaintenanceSnapshot.INITIAL);
+    // 終了処理（REOPENING）の途中に開始時刻を迎えたイベント（IDLEに戻った時点で開始する）
+    private final AtomicReference<MaintenanceEvent> deferredStart = new AtomicReference<>();
+    // 状態ファイルへの書き込み待ち（保存・削除のうち最新のもののみを保持する）
+    private final AtomicReference<Runnable> pendingStateWrite = new AtomicReference<>();
+    private final AtomicBoolean stateWriterRunning = new AtomicBoolean();
+    // 通知対象の全員分の再確認が実行待ちかどうか（連続した変更をまとめて1回にする）
+    private final AtomicBoolean audienceRefreshQueued = new AtomicBoolean();
+    // この人数以上のプレイヤーを一括評価する場合は並列化する
+    private static final int PARALLEL_EVALUATION_THRESHOLD = 256;
 
-    private final List<MaintenanceEvent> scheduledMaintenances = Collections.synchronizedList(new ArrayList<>());
-    private MaintenanceEvent currentMaintenance;
-    private boolean maintenanceMode = false;
     private final Map<String, Boolean> discordNotificationSentMap = new ConcurrentHashMap<>();
-    private final Set<String> processedEventIds = ConcurrentHashMap.newKeySet();
-    private final Map<String, Map<Integer, ScheduledFuture<?>>> scheduledNotifications = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
-
-    public MaintenanceManager(ProxyServer server, ConfigManager configManager,
-            DiscordNotifier discordNotifier, Logger logger,
-            MaintenanceStateManager stateManager) {
+    private final PluginExecutors executors;
+    // イベントごとの通知・開始タイマー
+    private final TimelineScheduler timeline;
+    private final StagedEvictor stagedEvictor;
+    // プレイヤーの接続時刻（切断順の決定に使用）
+    private final Map<UUID, Long> connectedSince = new ConcurrentHashMap<>();
+    private final NotificationAudience notificationAudience;
+    private final AdminAllowList adminAllowList;
+    private ScheduledFuture<?> adminAllowListRefreshTask;
+
+    public MaintenanceManager(ProxyServer server, ConfigManager configManager, MessageTemplates templates,
+            MaintenanceNotifier notifier, Logger logger,
+            MaintenanceStateManager stateManager, PluginExecutors executors, TimelineScheduler timeline) {
+        // 時刻は全てタイムラインの時計に従う（TimelineScheduler.manual() を渡すと仮想時間で動作する）
         this.server = server;
+        this.executors = executors;
+        this.clock = timeline.getClock();
         this.configManager = configManager;
-        this.discordNotifier = discordNotifier;
+        this.templates = templates;
+        this.notifier = notifier;
         this.logger = logger;
         this.stateManager = stateManager;
+        this.timeline = timeline;
+        this.stagedEvictor = new StagedEvictor(executors.getTimers(), clock, logger);
+        this.notificationAudience = new NotificationAudience(executors.getCompute());
+        this.adminAllowList = new AdminAllowList(logger);
+        this.permissionCache = new PermissionCache(
+                configManager.getPermissionCacheMaxSize(),
+                TimeUnit.SECONDS.toMillis(configManager.getPermissionCacheTtlSeconds()),
+                clock);
 
         // 保存されたメンテナンス状態を復元
         restoreMaintenanceState();
     }
 
     public void syncGoogleCalendarEvents(List<MaintenanceEvent> fetchedEvents) {
-        synchronized (scheduledMaintenances) {
-            Set<String> fetchedEventIds = new HashSet<>();
+        syncSourceEvents(fetchedEvents, eventId -> !IcsEventSource.isIcsEventId(eventId));
+    }
+
+    // 取得元ごとの全件同期: ownedIdsに一致するイベントのうち、今回の一覧にないものだけをキャンセルする
+    // （他の取得元のイベントは対象外）
+    public void syncSourceEvents(List<MaintenanceEvent> fetchedEvents, Predicate<String> ownedIds) {
+        // 同期処理同士が重ならないようにする（参照側はスナップショットを使うためロック不要）
+        synchronized (eventStore) {
             Map<String, MaintenanceEvent> fetchedEventsMap = new HashMap<>();
 
             for (MaintenanceEvent event : fetchedEvents) {
-                fetchedEventIds.add(event.getId());
                 fetchedEventsMap.put(event.getId(), event);
             }
 
+            boolean stateChanged = false;
+
             // 1. 削除されたイベントの検出と処理
             // スケジュール済みだが、今回取得したリストに含まれていないイベントを探す
-            Iterator<MaintenanceEvent> iterator = scheduledMaintenances.iterator();
-            while (iterator.hasNext()) {
-                MaintenanceEvent existingEvent = iterator.next();
-                String existingId = existingEvent.getId();
-
-                // 既に終了したイベントは対象外（これらは自動的に削除されないため）
-                // ただし、まだ開始していない、または進行中のイベントがカレンダーから消えた場合はキャンセル扱い
-                if (!fetchedEventIds.contains(existingId)) {
-                    // 過去のイベントは無視
-                    if (existingEvent.getEndTime().isBefore(Instant.now())) {
-                        continue;
-                    }
-
-                    logger.info("Maintenance cancelled (removed from calendar): " + existingEvent.getTitle());
-
-                    // Discord通知 - キャンセル
-                    discordNotifier.sendMaintenanceCancelled(existingEvent);
-
-                    // 通知のキャンセル
-                    cancelEventNotifications(existingId);
-
-                    // リストから削除
-                    iterator.remove();
-                    processedEventIds.remove(existingId);
-                    discordNotificationSentMap.remove(existingId);
-
-                    // もし現在進行中のメンテナンスだった場合、メンテナンスモードを終了するか検討
-                    // (安全のため、自動では終了せず、管理者に任せるか、あるいは終了させるか。ここでは終了させない)
+            for (MaintenanceEvent existingEvent : eventStore.snapshot()) {
+                if (ownedIds.test(existingEvent.getId()) && !fetchedEventsMap.containsKey(existingEvent.getId())) {
+                    stateChanged |= cancelRemovedEvent(existingEvent);
                 }
             }
 
             // 2. 新規・更新イベントの処理
-            boolean stateChanged = false;
-
             for (MaintenanceEvent fetchedEvent : fetchedEvents) {
-                String eventId = fetchedEvent.getId();
-
-                // 既存イベントの検索
-                MaintenanceEvent existingEvent = scheduledMaintenances.stream()
-                        .filter(e -> e.getId().equals(eventId))
-                        .findFirst()
-                        .orElse(null);
-
-                if (existingEvent == null) {
-                    // 新規イベント
-                    scheduleMaintenanceEvent(fetchedEvent);
-                    stateChanged = true;
-                } else {
-                    // 更新チェック
-                    if (!existingEvent.equals(fetchedEvent)) {
-                        logger.info(
-                                "Maintenance updated: " + existingEvent.getTitle() + " -> " + fetchedEvent.getTitle());
-
-                        // Discord通知 - 更新
-                        discordNotifier.sendMaintenanceUpdated(existingEvent, fetchedEvent);
+                stateChanged |= applyFetchedEvent(fetchedEvent);
+            }
 
-                        // 古いイベントを削除して新しいイベントを追加
-                        scheduledMaintenances.remove(existingEvent);
-                        scheduledMaintenances.add(fetchedEvent);
+            if (stateChanged) {
+                // 状態保存
+                saveMaintenanceState();
+            }
+        }
+    }
 
-                        // 通知スケジュールの再設定
-                        cancelEventNotifications(eventId);
-                        scheduleNotifications(fetchedEvent);
-                        scheduleMaintenanceStart(fetchedEvent);
+    // 差分同期: 変更・追加されたイベントと、削除（または同期対象外になった）イベントのIDのみを反映する
+    public void applyGoogleCalendarChanges(List<MaintenanceEvent> changedEvents, Collection<String> removedEventIds) {
+        synchronized (eventStore) {
+            boolean stateChanged = false;
 
-                        stateChanged = true;
-                    }
+            for (String removedId : removedEventIds) {
+                MaintenanceEvent existingEvent = eventStore.get(removedId);
+                if (existingEvent != null) {
+                    stateChanged |= cancelRemovedEvent(existingEvent);
                 }
             }
 
+            for (MaintenanceEvent changedEvent : changedEvents) {
+                stateChanged |= applyFetchedEvent(changedEvent);
+            }
+
             if (stateChanged) {
-                // 開始時刻でソート
-                scheduledMaintenances.sort(Comparator.comparing(MaintenanceEvent::getStartTime));
-                // 状態保存
                 saveMaintenanceState();
             }
         }
     }
 
+    // カレンダーから消えたイベントをキャンセル扱いにする
+    private boolean cancelRemovedEvent(MaintenanceEvent existingEvent) {
+        String existingId = existingEvent.getId();
+
+        // 既に終了したイベントは対象外（これらは自動的に削除されないため）
+        // ただし、まだ開始していない、または進行中のイベントがカレンダーから消えた場合はキャンセル扱い
+        if (existingEvent.getEndTime().isBefore(clock.instant())) {
+            return false;
+        }
+
+        logger.info("Maintenance cancelled (removed from calendar): " + existingEvent.getTitle());
+
+        // Discord通知 - キャンセル
+        notifier.sendMaintenanceCancelled(existingEvent);
+
+        // 通知のキャンセル
+        cancelEventNotifications(existingId);
+
+        // ストアから削除
+        eventStore.remove(existingId);
+        discordNotificationSentMap.remove(existingId);
+
+        // もし現在進行中のメンテナンスだった場合、メンテナンスモードを終了するか検討
+        // (安全のため、自動では終了せず、管理者に任せるか、あるいは終了させるか。ここでは終了させない)
+        return true;
+    }
+
+    // 取得したイベントを新規登録または既存イベントの更新として反映する
+    private boolean applyFetchedEvent(MaintenanceEvent fetchedEvent) {
+        String eventId = fetchedEvent.getId();
+
+        // 既存イベントの検索
+        MaintenanceEvent existingEvent = eventStore.get(eventId);
+
+        if (existingEvent == null) {
+            // 新規イベント
+            scheduleMaintenanceEvent(fetchedEvent);
+            return true;
+        }
+
+        // 更新チェック
+        if (existingEvent.equals(fetchedEvent)) {
+            return false;
+        }
+
+        logger.info("Maintenance updated: " + existingEvent.getTitle() + " -> " + fetchedEvent.getTitle());
+
+        // Discord通知 - 更新
+        notifier.sendMaintenanceUpdated(existingEvent, fetchedEvent);
+
+        // 古いイベントを新しいイベントで置き換え
+        eventStore.put(fetchedEvent);
+
+        // 通知スケジュールの再設定
+        cancelEventNotifications(eventId);
+        scheduleNotifications(fetchedEvent);
+        scheduleMaintenanceStart(fetchedEvent);
+
+        return true;
+    }
+
     public boolean scheduleMaintenanceEvent(MaintenanceEvent event) {
         String eventId = event.getId();
 
-        Instant now = Instant.now();
+        Instant now = clock.instant();
         Instant startTime = event.getStartTime();
         Instant endTime = event.getEndTime();
 
@@ -153,32 +219,22 @@ public class MaintenanceManager {
         }
 
         // 既に処理済みのイベントかチェック
-        if (processedEventIds.contains(eventId)) {
+        MaintenanceEvent existingEvent = eventStore.get(eventId);
+        if (existingEvent != null) {
             // 既存のイベントと同じかチェック
-            synchronized (scheduledMaintenances) {
-                for (MaintenanceEvent e : scheduledMaintenances) {
-                    if (e.getId().equals(eventId)) {
-                        if (e.equals(event)) {
-                            return false; // 変更なし
-                        }
-                        break;
-                    }
-                }
+            if (existingEvent.equals(event)) {
+                return false; // 変更なし
             }
-            // 既存のイベントを更新
-            scheduledMaintenances.removeIf(e -> e.getId().equals(eventId));
+            // 既存のイベントを更新（古い予定のタイマーは取り消す）
+            cancelEventNotifications(eventId);
         }
 
-        processedEventIds.add(eventId);
-        scheduledMaintenances.add(event);
-
-        // 開始時刻でソート
-        scheduledMaintenances.sort(Comparator.comparing(MaintenanceEvent::getStartTime));
+        eventStore.put(event);
 
         // Discord通知 - メンテナンス決定(未通知の場合のみ)
         Boolean notificationSent = discordNotificationSentMap.get(eventId);
         if (notificationSent == null || !notificationSent) {
-            discordNotifier.sendMaintenanceScheduled(event);
+            notifier.sendMaintenanceScheduled(event);
             discordNotificationSentMap.put(eventId, true);
         }
 
@@ -196,10 +252,8 @@ public class MaintenanceManager {
 
     private void scheduleNotifications(MaintenanceEvent event) {
         String eventId = event.getId();
-        Map<Integer, ScheduledFuture<?>> eventNotifications = scheduledNotifications.computeIfAbsent(eventId,
-                k -> new ConcurrentHashMap<>());
 
-        long now = System.currentTimeMillis();
+        long now = clock.millis();
         long maintenanceTime = event.getStartTime().toEpochMilli();
 
         // 設定ファイルから通知時間を取得
@@ -207,53 +261,35 @@ public class MaintenanceManager {
 
         for (int minutes : notificationTimes) {
             long notificationTime = maintenanceTime - (minutes * 60 * 1000L);
-            long delay = notificationTime - now;
 
-            if (delay > 0) {
-                ScheduledFuture<?> future = scheduler.schedule(
-                        () -> sendMaintenanceNotification(event, minutes),
-                        delay,
-                        TimeUnit.MILLISECONDS);
-
-                eventNotifications.put(minutes, future);
+            if (notificationTime > now) {
+                timeline.schedule(eventId, notificationTime,
+                        () -> sendMaintenanceNotification(event, minutes));
             }
         }
 
         // 30秒前の通知
         if (configManager.is30SecondsNotificationEnabled()) {
             long notificationTime30s = maintenanceTime - 30000;
-            long delay30s = notificationTime30s - now;
-
-            if (delay30s > 0) {
-                ScheduledFuture<?> future = scheduler.schedule(
-                        () -> sendMaintenanceNotification(event, "30秒"),
-                        delay30s,
-                        TimeUnit.MILLISECONDS);
 
-                eventNotifications.put(0, future);
+            if (notificationTime30s > now) {
+                timeline.schedule(eventId, notificationTime30s,
+                        () -> sendMaintenanceNotification(event, "30秒"));
             }
         }
     }
 
     private void scheduleMaintenanceStart(MaintenanceEvent event) {
-        long now = System.currentTimeMillis();
+        long now = clock.millis();
         long startTime = event.getStartTime().toEpochMilli();
         long delay = startTime - now;
 
         if (delay > 0) {
-            String eventId = event.getId();
-            scheduler.schedule(() -> {
-                // 最も早いイベントを現在のメンテナンスとして設定
-                if (!maintenanceMode) {
-                    currentMaintenance = event;
-                    startMaintenance();
-                }
-            }, delay, TimeUnit.MILLISECONDS);
+            // 通知と同じキーで登録し、予定の変更・キャンセル時にまとめて取り消せるようにする
+            // 既にメンテナンス中の場合は状態遷移に失敗するため二重に開始されない
+            timeline.schedule(event.getId(), startTime, () -> startMaintenance(event, true));
         } else if (delay > -60000) { // 開始時刻から1分以内の場合は即座に開始
-            if (!maintenanceMode) {
-                currentMaintenance = event;
-                startMaintenance();
-            }
+            startMaintenance(event, true);
         }
     }
 
@@ -263,43 +299,49 @@ public class MaintenanceManager {
     }
 
     private void sendMaintenanceNotification(MaintenanceEvent event, String timeStr) {
-        String message = "§e§l[メンテナンス通知]\n" +
-                "§f" + timeStr + "後にメンテナンスが開始されます。\n" +
-                "§7タイトル: §f" + event.getTitle() + "\n" +
-                "§7開始時刻: §f" + formatDateTime(event.getStartTime());
+        Component component = templates.getNotification()
+                .renderComponent(MessageTemplates.gameValues(event, timeStr));
 
-        Component component = LegacyComponentSerializer.legacySection().deserialize(message);
-
-        for (Player player : server.getAllPlayers()) {
-            // maintenance.notice.off権限を持つユーザーには通知しない
-            if (!player.hasPermission("maintenance.notice.off")) {
-                player.sendMessage(component);
-            }
-        }
+        // maintenance.notice.off権限を持つユーザーは通知対象に含まれない
+        notificationAudience.broadcast(component);
     }
 
-    private void startMaintenance() {
-        startMaintenance(true);
+    private boolean transition(MaintenancePhase expected, MaintenancePhase next, MaintenanceEvent event) {
+        MaintenanceSnapshot current = state.get();
+        if (current.getPhase() != expected) {
+            return false;
+        }
+        return state.compareAndSet(current, current.transition(next, event));
     }
 
-    private void startMaintenance(boolean sendNotifications) {
-        maintenanceMode = true;
+    private void startMaintenance(MaintenanceEvent event, boolean sendNotifications) {
+        // IDLEからの遷移に成功した場合のみ開始する
+        if (!transition(MaintenancePhase.IDLE, MaintenancePhase.DRAINING, event)) {
+            if (state.get().getPhase() != MaintenancePhase.REOPENING) {
+                logger.info("Maintenance is already in progress; ignoring start of " + event.getTitle());
+                return;
+            }
+            // 直前のメンテナンスの終了処理中: 終了後に開始する
+            logger.info("Previous maintenance is still ending; deferring start of " + event.getTitle());
+            deferredStart.set(event);
+            // 記録する前に終了処理が終わっていた場合は、ここで開始する
+            if (state.get().getPhase() == MaintenancePhase.IDLE) {
+                startDeferredMaintenance();
+            }
+            return;
+        }
 
         logger.info("Maintenance mode activated");
 
-        // 許可されていないプレイヤーを全員キック
-        String kickMessage = configManager.getKickMessage();
-        Component kickComponent = LegacyComponentSerializer.legacySection().deserialize(kickMessage);
+        // 許可されていないプレイヤーを全員キックし、完了したら実施中に移行
+        kickUnauthorizedPlayers(() -> transition(MaintenancePhase.DRAINING, MaintenancePhase.ACTIVE, event));
 
-        for (Player player : server.getAllPlayers()) {
-            if (!isPlayerAllowed(player.getUsername())) {
-                player.disconnect(kickComponent);
-            }
-        }
+        // ログイン時の確認を省略できるadmin一覧を取得
+        startAdminAllowListRefresh();
 
         // Discord通知 - メンテナンス開始（通知が有効な場合のみ）
-        if (sendNotifications && currentMaintenance != null) {
-            discordNotifier.sendMaintenanceStarted(currentMaintenance);
+        if (sendNotifications) {
+            notifier.sendMaintenanceStarted(event);
         }
 
         // メンテナンス状態を保存
@@ -307,48 +349,170 @@ public class MaintenanceManager {
     }
 
     public void endMaintenance() {
-        if (!maintenanceMode) {
+        MaintenanceSnapshot current = state.get();
+        if (!current.isMaintenance()
+                || !state.compareAndSet(current, current.transition(MaintenancePhase.REOPENING, current.getCurrentEvent()))) {
             return;
         }
+        MaintenanceEvent currentMaintenance = current.getCurrentEvent();
 
-        maintenanceMode = false;
+        // 段階切断の途中であれば中止
+        stagedEvictor.cancel();
+        stopAdminAllowListRefresh();
 
         logger.info("Maintenance mode deactivated");
 
         // Discord通知 - メンテナンス終了
         if (currentMaintenance != null) {
-            discordNotifier.sendMaintenanceEnded(currentMaintenance);
+            notifier.sendMaintenanceEnded(currentMaintenance);
 
             // 終了したイベントのみを削除
             String eventId = currentMaintenance.getId();
-            scheduledMaintenances.removeIf(e -> e.getId().equals(eventId));
-            processedEventIds.remove(eventId);
+            eventStore.remove(eventId);
             discordNotificationSentMap.remove(eventId);
 
             // 終了したイベントの通知のみをキャンセル
             cancelEventNotifications(eventId);
-
-            currentMaintenance = null;
         }
 
         // 次のメンテナンスがあるかチェック
         MaintenanceEvent nextEvent = getNextMaintenanceEvent();
-        if (nextEvent == null && scheduledMaintenances.isEmpty()) {
+        if (nextEvent == null && eventStore.isEmpty()) {
             // 次のメンテナンスがない場合のみ、全スケジュールをキャンセルして状態をクリア
             cancelAllScheduledNotifications();
-            stateManager.clearState();
+            writeState(stateManager::clearState);
         } else {
             // 次のメンテナンスがある場合は状態を保存
             saveMaintenanceState();
         }
+
+        transition(MaintenancePhase.REOPENING, MaintenancePhase.IDLE, null);
+        startDeferredMaintenance();
+    }
+
+    // 終了処理中に開始時刻を迎えたイベントを開始する（その間にキャンセル・終了したものは除く）
+    private void startDeferredMaintenance() {
+        MaintenanceEvent event = deferredStart.getAndSet(null);
+        if (event == null) {
+            return;
+        }
+        if (!event.equals(eventStore.get(event.getId())) || !event.getEndTime().isAfter(clock.instant())) {
+            return;
+        }
+        startMaintenance(event, true);
     }
 
     public boolean isMaintenanceMode() {
-        return maintenanceMode;
+        return state.get().isMaintenance();
+    }
+
+    public MaintenanceSnapshot getState() {
+        return state.get();
+    }
+
+    public long getStateVersion() {
+        return state.get().getVersion();
+    }
+
+    public MessageTemplates getTemplates() {
+        return templates;
     }
 
     public void setLuckPerms(LuckPerms luckPerms) {
         this.luckPerms = luckPerms;
+        subscribeLuckPermsEvents();
+
+        // 復元されたメンテナンス中であればadmin一覧を取得
+        if (isMaintenanceMode()) {
+            startAdminAllowListRefresh();
+        }
+    }
+
+    private synchronized void startAdminAllowListRefresh() {
+        if (luckPerms == null || !configManager.isPreLoginCheckEnabled() || adminAllowListRefreshTask != null) {
+            return;
+        }
+
+        long interval = Math.max(1, configManager.getPreLoginRefreshMinutes());
+        adminAllowListRefreshTask = executors.getTimers().scheduleAtFixedRate(
+                () -> adminAllowList.refresh(luckPerms),
+                0, interval, TimeUnit.MINUTES);
+    }
+
+    private synchronized void stopAdminAllowListRefresh() {
+        if (adminAllowListRefreshTask != null) {
+            adminAllowListRefreshTask.cancel(false);
+            adminAllowListRefreshTask = null;
+        }
+        adminAllowList.clear();
+    }
+
+    // メンテナンス中のみ、admin権限の変更を待たずに一覧へ反映する
+    private synchronized void refreshAdminAllowList() {
+        if (adminAllowListRefreshTask != null) {
+            adminAllowList.refresh(luckPerms);
+        }
+    }
+
+    // グループの権限変更は誰に影響するか分からないため、オンラインの全員を計算用プールで確認し直す
+    private void refreshNotificationAudience() {
+        if (!audienceRefreshQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executors.getCompute().execute(() -> {
+                audienceRefreshQueued.set(false);
+                for (Player player : server.getAllPlayers()) {
+                    notificationAudience.refresh(player);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            audienceRefreshQueued.set(false);
+        }
+    }
+
+    private static boolean containsAdminNode(Set<Node> nodes) {
+        for (Node node : nodes) {
+            if (node.getKey().equalsIgnoreCase("group.admin")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void subscribeLuckPermsEvents() {
+        EventBus eventBus = luckPerms.getEventBus();
+
+        // ユーザーの権限データが再計算されたらそのユーザーの判定を破棄
+        // 通知対象も権限の変化に合わせて更新する
+        luckPermsSubscriptions.add(eventBus.subscribe(UserDataRecalculateEvent.class, event -> {
+            UUID uuid = event.getUser().getUniqueId();
+            permissionCache.invalidate(uuid);
+            server.getPlayer(uuid).ifPresent(notificationAudience::refresh);
+        }));
+
+        // ノードの変更: ユーザーなら該当ユーザーのみ、グループなら継承関係が変わるため全て破棄し、通知対象も確認し直す
+        // adminグループへの所属が変わった場合はadmin一覧も取得し直す
+        luckPermsSubscriptions.add(eventBus.subscribe(NodeMutateEvent.class, event -> {
+            boolean adminChanged = containsAdminNode(event.getDataBefore()) != containsAdminNode(event.getDataAfter());
+            if (event.isUser()) {
+                UUID uuid = ((User) event.getTarget()).getUniqueId();
+                permissionCache.invalidate(uuid);
+                if (adminChanged) {
+                    adminAllowList.remove(uuid);
+                }
+            } else {
+                permissionCache.invalidateAll();
+                refreshNotificationAudience();
+            }
+            if (adminChanged) {
+                refreshAdminAllowList();
+            }
+        }));
+    }
+
+    public PermissionCache getPermissionCache() {
+        return permissionCache;
     }
 
     public boolean isPlayerAllowed(String username) {
@@ -370,21 +534,20 @@ public class MaintenanceManager {
             return false;
         }
 
+        // キャッシュ済みの判定結果があればLuckPermsを参照しない
+        Boolean cached = permissionCache.get(player.getUniqueId());
+        if (cached != null) {
+            return cached;
+        }
+
+        // 参照中に権限が変わった場合に古い判定を登録しないよう、参照前の版数を控える
+        long stamp = permissionCache.stamp();
         try {
             User user = luckPerms.getUserManager().getUser(player.getUniqueId());
             if (user != null) {
-                // プライマリグループまたは継承グループに "admin" が含まれているかチェック
-                String primaryGroup = user.getPrimaryGroup();
-                if (primaryGroup != null && primaryGroup.equalsIgnoreCase("admin")) {
-                    return true;
-                }
-
-                // 親グループをチェック
-                boolean isInAdminGroup = user.getNodes().stream()
-                        .filter(node -> node.getKey().startsWith("group."))
-                        .anyMatch(node -> node.getKey().equalsIgnoreCase("group.admin"));
-
-                return isInAdminGroup;
+                boolean allowed = isAdmin(user);
+                permissionCache.put(player.getUniqueId(), allowed, stamp);
+                return allowed;
             } else {
                 logger.warn("LuckPerms user data not found for " + username + " (UUID: " + player.getUniqueId() + ")");
                 return false;
@@ -395,22 +558,146 @@ public class MaintenanceManager {
         }
     }
 
+    // ログイン時用の非同期チェック
+    // ユーザーデータが未ロードの場合はLuckPermsから読み込み、タイムアウト・失敗時は設定された方針に従う
+    public CompletableFuture<Boolean> isPlayerAllowedAsync(Player player) {
+        String username = player.getUsername();
+        UUID uuid = player.getUniqueId();
+
+        if (luckPerms == null) {
+            logger.error("LuckPerms is not available! Cannot check permissions for " + username);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Boolean cached = permissionCache.get(uuid);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        // 事前に取得したadmin一覧にいる場合はユーザーデータの読み込みを待たない
+        if (adminAllowList.contains(uuid)) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        long stamp = permissionCache.stamp();
+        CompletableFuture<User> userFuture;
+        try {
+            User loadedUser = luckPerms.getUserManager().getUser(uuid);
+            userFuture = loadedUser != null
+                    ? CompletableFuture.completedFuture(loadedUser)
+                    : luckPerms.getUserManager().loadUser(uuid, username);
+        } catch (Exception e) {
+            userFuture = CompletableFuture.failedFuture(e);
+        }
+
+        boolean fallback = configManager.isLoginCheckFallbackAllow();
+        return userFuture
+                .thenApply(user -> {
+                    boolean allowed = isAdmin(user);
+                    permissionCache.put(uuid, allowed, stamp);
+                    return allowed;
+                })
+                .orTimeout(configManager.getLoginCheckTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .handle((allowed, throwable) -> {
+                    if (throwable == null) {
+                        return allowed;
+                    }
+                    if (throwable instanceof CompletionException && throwable.getCause() != null) {
+                        throwable = throwable.getCause();
+                    }
+                    if (throwable instanceof TimeoutException) {
+                        logger.warn("LuckPerms permission check timed out for " + username
+                                + " (fallback: " + (fallback ? "allow" : "deny") + ")");
+                    } else {
+                        logger.error("Error checking LuckPerms permission for " + username
+                                + " (fallback: " + (fallback ? "allow" : "deny") + ")", throwable);
+                    }
+                    return fallback;
+                });
+    }
+
+    // オンラインプレイヤーをまとめて許可/拒否に振り分ける
+    // 人数が多い場合は分割し、先頭の範囲を呼び出し元で、残りをプラグインの計算用プールで並列に評価する
+    public EvaluationResult evaluateAll(Collection<Player> players) {
+        List<Player> snapshot = new ArrayList<>(players);
+
+        if (snapshot.size() < PARALLEL_EVALUATION_THRESHOLD) {
+            return evaluateRange(snapshot, 0, snapshot.size());
+        }
+
+        // 呼び出し元も1つの範囲を受け持つ
+        int workers = Math.max(1, Math.min(executors.getComputeParallelism() + 1,
+                snapshot.size() / PARALLEL_EVALUATION_THRESHOLD));
+        int chunkSize = (snapshot.size() + workers - 1) / workers;
+
+        List<CompletableFuture<EvaluationResult>> futures = new ArrayList<>(workers);
+        for (int from = chunkSize; from < snapshot.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(from + chunkSize, snapshot.size());
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> evaluateRange(snapshot, start, end),
+                        executors.getCompute()));
+            } catch (RejectedExecutionException e) {
+                // 停止中は呼び出し元で評価する
+                futures.add(CompletableFuture.completedFuture(evaluateRange(snapshot, start, end)));
+            }
+        }
+
+        EvaluationResult first = evaluateRange(snapshot, 0, Math.min(chunkSize, snapshot.size()));
+        List<Player> allowed = new ArrayList<>(first.getAllowed());
+        List<Player> denied = new ArrayList<>(first.getDenied());
+        for (CompletableFuture<EvaluationResult> future : futures) {
+            EvaluationResult partial = future.join();
+            allowed.addAll(partial.getAllowed());
+            denied.addAll(partial.getDenied());
+        }
+        return new EvaluationResult(allowed, denied);
+    }
+
+    private EvaluationResult evaluateRange(List<Player> players, int from, int to) {
+        List<Player> allowed = new ArrayList<>();
+        List<Player> denied = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Player player = players.get(i);
+            if (isPlayerAllowed(player)) {
+                allowed.add(player);
+            } else {
+                denied.add(player);
+            }
+        }
+        return new EvaluationResult(allowed, denied);
+    }
+
+    private boolean isAdmin(User user) {
+        // プライマリグループまたは継承グループに "admin" が含まれているかチェック
+        String primaryGroup = user.getPrimaryGroup();
+        if (primaryGroup != null && primaryGroup.equalsIgnoreCase("admin")) {
+            return true;
+        }
+
+        // 親グループをチェック
+        for (net.luckperms.api.node.Node node : user.getNodes()) {
+            if (node.getKey().equalsIgnoreCase("group.admin")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public Component getKickMessage() {
-        return LegacyComponentSerializer.legacySection()
-                .deserialize(configManager.getKickMessage());
+        return templates.getKickMessage().toComponent();
     }
 
     public void sendLoginNotification(Player player) {
-        if (scheduledMaintenances.isEmpty() || !configManager.isLoginNotificationEnabled()) {
+        if (eventStore.isEmpty() || !configManager.isLoginNotificationEnabled()) {
             return;
         }
 
         // maintenance.notice.off権限を持つユーザーには通知しない
-        if (player.hasPermission("maintenance.notice.off")) {
+        if (!notificationAudience.contains(player)) {
             return;
         }
 
-        long now = System.currentTimeMillis();
+        long now = clock.millis();
         MaintenanceEvent nextEvent = getNextMaintenanceEvent();
 
         if (nextEvent != null) {
@@ -428,72 +715,57 @@ public class MaintenanceManager {
                     timeStr = minutes + "分";
                 }
 
-                String message = "§e§l[メンテナンスのお知らせ]\n" +
-                        "§f" + timeStr + "後にメンテナンスが予定されています。\n" +
-                        "§7タイトル: §f" + nextEvent.getTitle() + "\n" +
-                        "§7開始時刻: §f" + formatDateTime(nextEvent.getStartTime());
-
-                Component component = LegacyComponentSerializer.legacySection().deserialize(message);
+                Component component = templates.getLoginNotification()
+                        .renderComponent(MessageTemplates.gameValues(nextEvent, timeStr));
                 player.sendMessage(component);
             }
         }
     }
 
+    // イベントの通知と開始タイマーをまとめてキャンセル
     private void cancelEventNotifications(String eventId) {
-        Map<Integer, ScheduledFuture<?>> eventNotifications = scheduledNotifications.remove(eventId);
-        if (eventNotifications != null) {
-            for (ScheduledFuture<?> future : eventNotifications.values()) {
-                future.cancel(false);
-            }
-        }
+        timeline.cancel(eventId);
     }
 
     private void cancelAllScheduledNotifications() {
-        for (Map<Integer, ScheduledFuture<?>> eventNotifications : scheduledNotifications.values()) {
-            for (ScheduledFuture<?> future : eventNotifications.values()) {
-                future.cancel(false);
-            }
-        }
-        scheduledNotifications.clear();
+        timeline.cancelAll();
     }
 
-    public void shutdown() {
-        cancelAllScheduledNotifications();
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+    public Clock getClock() {
+        return clock;
     }
 
-    private String formatDateTime(Instant instant) {
-        ZonedDateTime dateTime = instant.atZone(ZoneId.of("Asia/Tokyo"));
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd(E) HH:mm", java.util.Locale.JAPANESE);
-        return dateTime.format(formatter);
+    public PluginExecutors getExecutors() {
+        return executors;
+    }
+
+    public TimelineScheduler getTimeline() {
+        return timeline;
+    }
+
+    // タイマーと購読を解除する（実行器自体はプラグインが最後に停止する）
+    public void shutdown() {
+        timeline.shutdown();
+        stagedEvictor.cancel();
+        stopAdminAllowListRefresh();
+        for (EventSubscription<?> subscription : luckPermsSubscriptions) {
+            subscription.close();
+        }
+        luckPermsSubscriptions.clear();
     }
 
     public MaintenanceEvent getCurrentMaintenance() {
-        return currentMaintenance;
+        return state.get().getCurrentEvent();
     }
 
     private MaintenanceEvent getNextMaintenanceEvent() {
-        Instant now = Instant.now();
-        return scheduledMaintenances.stream()
-                .filter(event -> event.getStartTime().isAfter(now))
-                .findFirst()
-                .orElse(null);
+        return eventStore.nextStartingAfter(clock.instant());
     }
 
     public List<MaintenanceEvent> getAllScheduledMaintenances() {
         // 全てのスケジュールされたメンテナンスを返す
         // 注: 終了時刻が過ぎていても、endコマンドで明示的に終了するまで保持される
-        return scheduledMaintenances.stream()
-                .sorted(Comparator.comparing(MaintenanceEvent::getStartTime))
-                .toList();
+        return eventStore.snapshot();
     }
 
     public String getNextScheduleInfo() {
@@ -505,7 +777,7 @@ public class MaintenanceManager {
 
         StringBuilder sb = new StringBuilder("§e§l[メンテナンススケジュール]\n");
 
-        long now = System.currentTimeMillis();
+        long now = clock.millis();
         int count = 0;
         for (MaintenanceEvent event : upcomingEvents) {
             if (count >= 5)
@@ -564,8 +836,8 @@ public class MaintenanceManager {
 
             sb.append("§f").append(count + 1).append(". ").append(event.getTitle()).append("\n");
             sb.append("§7説明: §f").append(event.getDescription().isEmpty() ? "なし" : event.getDescription()).append("\n");
-            sb.append("§7開始: §a").append(formatDateTime(event.getStartTime())).append("\n");
-            sb.append("§7終了予定: §a").append(formatDateTime(event.getEndTime())).append("\n");
+            sb.append("§7開始: §a").append(MessageTemplates.formatGameDateTime(event.getStartTime())).append("\n");
+            sb.append("§7終了予定: §a").append(MessageTemplates.formatGameDateTime(event.getEndTime())).append("\n");
             sb.append("§7状態: §e").append(status).append(" §7(").append(timeInfo).append(")");
 
             count++;
@@ -575,7 +847,7 @@ public class MaintenanceManager {
     }
 
     public Set<String> getProcessedEventIds() {
-        return new HashSet<>(processedEventIds);
+        return new HashSet<>(eventStore.ids());
     }
 
     private void restoreMaintenanceState() {
@@ -591,13 +863,12 @@ public class MaintenanceManager {
             return;
         }
 
-        // 手順1: まず全てのイベントをリストに復元する
+        // 手順1: まず全てのイベントをストアに復元する
         // (これを先にやらないと、保存時にデータが消えるバグが発生します)
         for (MaintenanceEvent event : events) {
             String eventId = event.getId();
 
-            scheduledMaintenances.add(event);
-            processedEventIds.add(eventId);
+            eventStore.put(event);
 
             // Discord通知状態を復元
             Boolean notificationSent = notificationMap.get(eventId);
@@ -607,18 +878,16 @@ public class MaintenanceManager {
         }
 
         // 手順2: メンテナンスモードの復元判定
-        Instant now = Instant.now();
+        Instant now = clock.instant();
 
         // ★修正点: JSONファイルで maintenanceMode: true だった場合のみ、再開判定を行う
         if (state.isMaintenanceMode()) {
-            for (MaintenanceEvent event : scheduledMaintenances) {
+            for (MaintenanceEvent event : eventStore.snapshot()) {
                 Instant startTime = event.getStartTime();
 
                 // 開始時刻を過ぎていて、かつ現在進行中のイベントを探す
                 if (startTime.isBefore(now)) {
-                    currentMaintenance = event;
-                    maintenanceMode = true;
-                    startMaintenance(false); // 通知なしで再開
+                    startMaintenance(event, false); // 通知なしで再開
                     break; // 1つ見つけたら終了
                 }
             }
@@ -626,33 +895,117 @@ public class MaintenanceManager {
 
         // 手順3: 未来のイベントのスケジュール登録
         // (メンテナンス中でない、またはメンテナンス中でも未来の予定はスケジュールする)
-        for (MaintenanceEvent event : scheduledMaintenances) {
+        for (MaintenanceEvent event : eventStore.snapshot()) {
             if (event.getStartTime().isAfter(now)) {
                 scheduleNotifications(event);
                 scheduleMaintenanceStart(event);
             }
         }
-
-        // ソート
-        scheduledMaintenances.sort(Comparator.comparing(MaintenanceEvent::getStartTime));
     }
 
     private void saveMaintenanceState() {
         MaintenanceStateManager.MaintenanceState state = new MaintenanceStateManager.MaintenanceState(
-                maintenanceMode,
-                new ArrayList<>(scheduledMaintenances),
+                isMaintenanceMode(),
+                eventStore.snapshot(),
                 new HashMap<>(discordNotificationSentMap));
-        stateManager.saveState(state);
+        writeState(() -> stateManager.saveState(state));
     }
 
-    private void kickUnauthorizedPlayers() {
-        String kickMessage = configManager.getKickMessage();
-        Component kickComponent = LegacyComponentSerializer.legacySection().deserialize(kickMessage);
+    // 状態ファイルの書き込みはタイマーを止めないようI/Oスレッドで1件ずつ行う
+    // 書き込み中に新しい状態が来た場合は、途中の状態を飛ばして最新のもののみを書き込む
+    private void writeState(Runnable write) {
+        pendingStateWrite.set(write);
+        startStateWriterIfIdle();
+    }
 
-        for (Player player : server.getAllPlayers()) {
-            if (!isPlayerAllowed(player.getUsername())) {
+    private void startStateWriterIfIdle() {
+        if (pendingStateWrite.get() != null && stateWriterRunning.compareAndSet(false, true)) {
+            try {
+                executors.getIo().execute(this::drainStateWrites);
+            } catch (RejectedExecutionException e) {
+                // 停止処理中は呼び出し元のスレッドで書き込む
+                drainStateWrites();
+            }
+        }
+    }
+
+    private void drainStateWrites() {
+        Runnable write;
+        while ((write = pendingStateWrite.getAndSet(null)) != null) {
+            try {
+                write.run();
+            } catch (RuntimeException e) {
+                logger.error("Failed to write maintenance state", e);
+            }
+        }
+        stateWriterRunning.set(false);
+        // 終了直前に積まれた書き込みを取りこぼさない
+        startStateWriterIfIdle();
+    }
+
+    private void kickUnauthorizedPlayers(Runnable onDrained) {
+        Component kickComponent = getKickMessage();
+
+        List<Player> targets = new ArrayList<>(evaluateAll(server.getAllPlayers()).getDenied());
+
+        if (!configManager.isStagedEvictionEnabled()) {
+            for (Player player : targets) {
                 player.disconnect(kickComponent);
             }
+            onDrained.run();
+            return;
+        }
+
+        sortEvictionTargets(targets);
+        stagedEvictor.start(targets, kickComponent,
+                configManager.getEvictionBatchSize(), configManager.getEvictionIntervalMillis(), onDrained);
+    }
+
+    private void sortEvictionTargets(List<Player> targets) {
+        String order = configManager.getEvictionOrder();
+        Comparator<Player> byConnectedSince = Comparator.comparingLong(
+                player -> connectedSince.getOrDefault(player.getUniqueId(), Long.MAX_VALUE));
+
+        if (order.equalsIgnoreCase("longest-online")) {
+            targets.sort(byConnectedSince);
+        } else if (order.equalsIgnoreCase("newest-first")) {
+            targets.sort(byConnectedSince.reversed());
+        }
+    }
+
+    public void onPlayerConnected(Player player) {
+        connectedSince.put(player.getUniqueId(), clock.millis());
+        notificationAudience.refresh(player);
+    }
+
+    public void onPlayerDisconnected(Player player) {
+        connectedSince.remove(player.getUniqueId());
+        notificationAudience.remove(player);
+    }
+
+    public NotificationAudience getNotificationAudience() {
+        return notificationAudience;
+    }
+
+    public StagedEvictor getStagedEvictor() {
+        return stagedEvictor;
+    }
+
+    public static final class EvaluationResult {
+        private final List<Player> allowed;
+        private final List<Player> denied;
+
+        public EvaluationResult(List<Player> allowed, List<Player> denied) {
+            this.allowed = Collections.unmodifiableList(allowed);
+            this.denied = Collections.unmodifiableList(denied);
+        }
+
+        public List<Player> getAllowed() {
+            return allowed;
+        }
+
+        public List<Player> getDenied() {
+            return denied;
         }
     }
 }
@@ -0,0 +1,32 @@
+package com.ineserver.maintenance;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// メンテナンスの状態変化を外部へ通知する通知先
+// 既定では各メソッドは通知先ごとの専用レーンで順番に呼ばれるため、ブロッキング処理を行ってもよい
+public interface MaintenanceNotifier {
+
+    // 統計表示やログに使う通知先の名前
+    String getName();
+
+    void sendMaintenanceScheduled(MaintenanceEvent event);
+
+    void sendMaintenanceStarted(MaintenanceEvent event);
+
+    void sendMaintenanceEnded(MaintenanceEvent event);
+
+    void sendMaintenanceUpdated(MaintenanceEvent oldEvent, MaintenanceEvent newEvent);
+
+    void sendMaintenanceCancelled(MaintenanceEvent event);
+
+    // 通知を呼び出し元のスレッドで受け付け、レーンで非同期に行う配信処理を返す（配信処理がない場合はnull）
+    // 呼び出し元のスレッドで行う必要がある処理がある場合のみ上書きする
+    default Runnable prepare(Consumer<MaintenanceNotifier> call) {
+        return () -> call.accept(this);
+    }
+
+    // 停止時に送信待ちの通知を期限まで送信する
+    default void shutdown(long timeout, TimeUnit unit) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.ineserver.maintenance;
+
+// メンテナンスの進行段階
+// IDLE → DRAINING → ACTIVE → REOPENING → IDLE の順に遷移する
+public enum MaintenancePhase {
+    // 通常稼働中
+    IDLE,
+    // メンテナンス開始直後（許可されていないプレイヤーを切断中）
+    DRAINING,
+    // メンテナンス実施中
+    ACTIVE,
+    // メンテナンス終了処理中
+    REOPENING;
+
+    // ログイン制限やPing応答の変更を行う段階かどうか
+    public boolean isMaintenance() {
+        return this == DRAINING || this == ACTIVE;
+    }
+}
@@ -9,9 +9,14 @@ import com.velocitypowered.api.plugin.Dependency;
 import com.velocitypowered.api.plugin.annotation.DataDirectory;
 import com.velocitypowered.api.proxy.ProxyServer;
 import net.luckperms.api.LuckPerms;
+import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 
 import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Plugin(
         id = "ineserver_maintenance_plugin",
@@ -30,8 +35,12 @@ public class MaintenancePlugin {
     private ConfigManager configManager;
     private MaintenanceManager maintenanceManager;
     private GoogleCalendarService googleCalendarService;
-    private DiscordNotifier discordNotifier;
+    private IcsEventSource icsEventSource;
+    private final List<MaintenanceEventSource> eventSources = new ArrayList<>();
+    private NotificationDispatcher notificationDispatcher;
+    private OkHttpClient httpClient;
     private MaintenanceStateManager stateManager;
+    private PluginExecutors executors;
 
     @Inject
     public MaintenancePlugin(ProxyServer server, Logger logger, @DataDirectory Path dataDirectory) {
@@ -49,14 +58,23 @@ public class MaintenancePlugin {
             configManager = new ConfigManager(dataDirectory, logger);
             configManager.loadConfig();
 
-            // Discord通知機能の初期化
-            discordNotifier = new DiscordNotifier(configManager, logger);
+            // 共有実行環境の初期化
+            executors = new PluginExecutors(logger);
+            Clock clock = Clock.systemUTC();
+
+            // メッセージテンプレートのコンパイル
+            MessageTemplates templates = new MessageTemplates(configManager);
+
+            // 通知先の初期化（HTTP通信は全ての通知先・取得元で接続プールを共有する）
+            httpClient = new OkHttpClient();
+            notificationDispatcher = createNotificationDispatcher(templates, httpClient, clock);
             
             // メンテナンス状態管理の初期化
             stateManager = new MaintenanceStateManager(dataDirectory, logger);
 
             // メンテナンス管理機能の初期化
-            maintenanceManager = new MaintenanceManager(server, configManager, discordNotifier, logger, stateManager);
+            maintenanceManager = new MaintenanceManager(server, configManager, templates, notificationDispatcher, logger,
+                    stateManager, executors, new TimelineScheduler(executors.getTimers(), clock, logger));
 
             // LuckPerms連携の初期化（必須）
             try {
@@ -103,17 +121,27 @@ public class MaintenancePlugin {
                 logger.error("WARNING: LuckPerms is required for this plugin to function properly!");
             }
 
-            // Google Calendar連携の初期化
-            googleCalendarService = new GoogleCalendarService(configManager, maintenanceManager, logger);
-            googleCalendarService.initialize();
+            // メンテナンス予定の取得元の初期化（Google Calendar連携・ICSファイル）
+            googleCalendarService = new GoogleCalendarService(configManager, maintenanceManager, executors,
+                    dataDirectory, logger);
+            icsEventSource = new IcsEventSource(configManager, maintenanceManager, executors, httpClient,
+                    dataDirectory, logger);
+            eventSources.add(googleCalendarService);
+            eventSources.add(icsEventSource);
+            for (MaintenanceEventSource eventSource : eventSources) {
+                eventSource.initialize();
+            }
+
+            ServerPingListener serverPingListener = new ServerPingListener(maintenanceManager, configManager);
 
             // コマンドの登録
-            MaintenanceCommand maintenanceCommand = new MaintenanceCommand(maintenanceManager);
+            MaintenanceCommand maintenanceCommand = new MaintenanceCommand(maintenanceManager, serverPingListener,
+                    notificationDispatcher, googleCalendarService, icsEventSource);
             server.getCommandManager().register(maintenanceCommand.createCommand());
 
             // イベントリスナーの登録
             server.getEventManager().register(this, new PlayerConnectionListener(maintenanceManager));
-            server.getEventManager().register(this, new ServerPingListener(maintenanceManager));
+            server.getEventManager().register(this, serverPingListener);
 
             logger.info("Maintenance Plugin has been enabled successfully!");
         } catch (Exception e) {
@@ -121,18 +149,59 @@ public class MaintenancePlugin {
         }
     }
 
+    private NotificationDispatcher createNotificationDispatcher(MessageTemplates templates, OkHttpClient httpClient,
+            Clock clock) {
+        NotificationDispatcher dispatcher = new NotificationDispatcher(executors.getIo(), logger);
+
+        if (configManager.isDiscordEnabled()) {
+            dispatcher.addNotifier(new DiscordNotifier("discord", configManager.getDiscordWebhookUrl(), configManager,
+                    templates, executors, httpClient, dataDirectory, clock, logger));
+            List<String> additionalUrls = configManager.getDiscordAdditionalWebhookUrls();
+            for (int i = 0; i < additionalUrls.size(); i++) {
+                dispatcher.addNotifier(new DiscordNotifier("discord-" + (i + 2), additionalUrls.get(i), configManager,
+                        templates, executors, httpClient, dataDirectory, clock, logger));
+            }
+        }
+
+        if (configManager.isHttpNotifierEnabled()) {
+            dispatcher.addNotifier(new HttpJsonNotifier(configManager.getHttpNotifierUrl(), httpClient, clock));
+        }
+
+        if (configManager.isLogNotifierEnabled()) {
+            dispatcher.addNotifier(new LogNotifier(logger));
+        }
+
+        return dispatcher;
+    }
+
     @Subscribe
     public void onProxyShutdown(ProxyShutdownEvent event) {
         logger.info("Shutting down Maintenance Plugin...");
 
-        if (googleCalendarService != null) {
-            googleCalendarService.shutdown();
+        for (MaintenanceEventSource eventSource : eventSources) {
+            eventSource.shutdown();
         }
 
         if (maintenanceManager != null) {
             maintenanceManager.shutdown();
         }
 
+        // 新しい通知が積まれなくなってから、送信待ちの通知を期限まで送信する
+        if (notificationDispatcher != null) {
+            notificationDispatcher.shutdown(5, TimeUnit.SECONDS);
+        }
+
+        // 全ての送信が終わってから、共有のHTTPクライアントのスレッドと接続を解放する
+        if (httpClient != null) {
+            httpClient.dispatcher().executorService().shutdown();
+            httpClient.connectionPool().evictAll();
+        }
+
+        // 新しい処理の投入元を全て止めてから、実行中の処理の完了を待つ
+        if (executors != null) {
+            executors.shutdown(10, TimeUnit.SECONDS);
+        }
+
         logger.info("Maintenance Plugin has been disabled.");
     }
 }
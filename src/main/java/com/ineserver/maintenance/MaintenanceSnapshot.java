@@ -0,0 +1,39 @@
+package com.ineserver.maintenance;
+
+// メンテナンス状態の不変スナップショット
+// AtomicReferenceで公開し、読み取り側は1回のvolatile読み込みで一貫した状態を得る
+public final class MaintenanceSnapshot {
+
+    public static final MaintenanceSnapshot INITIAL = new MaintenanceSnapshot(MaintenancePhase.IDLE, null, 0);
+
+    private final MaintenancePhase phase;
+    private final MaintenanceEvent currentEvent;
+    private final long version;
+
+    private MaintenanceSnapshot(MaintenancePhase phase, MaintenanceEvent currentEvent, long version) {
+        this.phase = phase;
+        this.currentEvent = currentEvent;
+        this.version = version;
+    }
+
+    public MaintenanceSnapshot transition(MaintenancePhase nextPhase, MaintenanceEvent nextEvent) {
+        return new MaintenanceSnapshot(nextPhase, nextEvent, version + 1);
+    }
+
+    public MaintenancePhase getPhase() {
+        return phase;
+    }
+
+    public MaintenanceEvent getCurrentEvent() {
+        return currentEvent;
+    }
+
+    // 遷移のたびに増加する（Ping応答などのキャッシュ判定用）
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isMaintenance() {
+        return phase.isMaintenance();
+    }
+}
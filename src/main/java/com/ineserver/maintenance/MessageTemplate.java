@@ -0,0 +1,187 @@
+package com.ineserver.maintenance;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// {name} 形式のプレースホルダーを含むメッセージを読み込み時に一度だけ解析したテンプレート
+// リテラル部分とプレースホルダーを交互に保持し、描画時はスレッドごとに使い回すStringBuilderで連結する
+// プレースホルダー名は解析時に番号へ置き換え、値は名前ではなく番号で参照する（描画ごとにMapを作らない）
+public final class MessageTemplate {
+
+    // 描画用のバッファ（極端に長いメッセージの後はメモリを抱え込まないよう作り直す）
+    private static final int MAX_RETAINED_BUFFER = 8192;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    // segments[0], placeholders[0], segments[1], placeholders[1], ... segments[n] の順に連結する
+    private final String[] segments;
+    private final Placeholder[] placeholders;
+    // プレースホルダーを含まない場合はComponentを使い回す
+    private final Component staticComponent;
+    // 直近に描画したComponent（描画結果の文字列が同じ間はレガシー形式の解析をやり直さない）
+    private volatile Rendered lastRendered;
+
+    private MessageTemplate(String source, String[] segments, Placeholder[] placeholders) {
+        this.source = source;
+        this.segments = segments;
+        this.placeholders = placeholders;
+        this.staticComponent = placeholders.length == 0
+                ? LegacyComponentSerializer.legacySection().deserialize(source)
+                : null;
+    }
+
+    public static MessageTemplate compile(String source) {
+        List<String> segments = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int index = 0;
+        while (index < source.length()) {
+            char c = source.charAt(index);
+            if (c == '{') {
+                int close = source.indexOf('}', index + 1);
+                Placeholder placeholder = close > index + 1
+                        ? Placeholder.byName(source.substring(index + 1, close))
+                        : null;
+                // 未定義のプレースホルダーは描画時に値が入ることがないため、リテラルとして残す
+                if (placeholder != null) {
+                    segments.add(literal.toString());
+                    literal.setLength(0);
+                    placeholders.add(placeholder);
+                    index = close + 1;
+                    continue;
+                }
+            }
+            literal.append(c);
+            index++;
+        }
+        segments.add(literal.toString());
+
+        return new MessageTemplate(source,
+                segments.toArray(new String[0]),
+                placeholders.toArray(new Placeholder[0]));
+    }
+
+    public String render(Values values) {
+        if (placeholders.length == 0) {
+            return source;
+        }
+        return renderInto(values).toString();
+    }
+
+    public Component renderComponent(Values values) {
+        if (staticComponent != null) {
+            return staticComponent;
+        }
+
+        StringBuilder sb = renderInto(values);
+        Rendered last = lastRendered;
+        if (last != null && last.text.contentEquals(sb)) {
+            return last.component;
+        }
+        String text = sb.toString();
+        Component component = LegacyComponentSerializer.legacySection().deserialize(text);
+        lastRendered = new Rendered(text, component);
+        return component;
+    }
+
+    public Component toComponent() {
+        return renderComponent(new Values());
+    }
+
+    // 結果は同じスレッドで次に描画するまでの間のみ有効
+    private StringBuilder renderInto(Values values) {
+        StringBuilder sb = BUFFER.get();
+        if (sb.capacity() > MAX_RETAINED_BUFFER) {
+            sb = new StringBuilder(256);
+            BUFFER.set(sb);
+        }
+        sb.setLength(0);
+
+        for (int i = 0; i < placeholders.length; i++) {
+            sb.append(segments[i]);
+            String value = values.get(placeholders[i]);
+            if (value != null) {
+                sb.append(value);
+            } else {
+                // 値のないプレースホルダーはそのまま残す
+                sb.append('{').append(placeholders[i].getName()).append('}');
+            }
+        }
+        sb.append(segments[placeholders.length]);
+        return sb;
+    }
+
+    public boolean hasPlaceholders() {
+        return placeholders.length > 0;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    // テンプレートで使えるプレースホルダー
+    public enum Placeholder {
+        TITLE("title"),
+        DESCRIPTION("description"),
+        DETAILS("details"),
+        START("start"),
+        END("end"),
+        OLD_START("old_start"),
+        OLD_END("old_end"),
+        REMAINING("remaining");
+
+        private static final Map<String, Placeholder> BY_NAME = new HashMap<>();
+
+        static {
+            for (Placeholder placeholder : values()) {
+                BY_NAME.put(placeholder.name, placeholder);
+            }
+        }
+
+        private final String name;
+
+        Placeholder(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Placeholder byName(String name) {
+            return BY_NAME.get(name);
+        }
+    }
+
+    // 1回の描画に使うプレースホルダーの値（番号で引く固定長の配列）
+    public static final class Values {
+        private static final int SIZE = Placeholder.values().length;
+
+        private final String[] values = new String[SIZE];
+
+        public Values set(Placeholder placeholder, String value) {
+            values[placeholder.ordinal()] = value;
+            return this;
+        }
+
+        public String get(Placeholder placeholder) {
+            return values[placeholder.ordinal()];
+        }
+    }
+
+    private static final class Rendered {
+        private final String text;
+        private final Component component;
+
+        private Rendered(String text, Component component) {
+            this.text = text;
+            this.component = component;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.ineserver.maintenance;
+
+import com.ineserver.maintenance.MessageTemplate.Placeholder;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+// ゲーム内メッセージとDiscord通知で共有するテンプレート群
+// 設定読み込み時に一度だけコンパイルし、以降は描画のみを行う
+public class MessageTemplates {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Tokyo");
+    public static final DateTimeFormatter GAME_DATE_TIME = DateTimeFormatter
+            .ofPattern("yyyy/MM/dd(E) HH:mm", Locale.JAPANESE)
+            .withZone(ZONE);
+    public static final DateTimeFormatter DISCORD_DATE_TIME = DateTimeFormatter
+            .ofPattern("yyyy年MM月dd日 HH:mm")
+            .withZone(ZONE);
+
+    private static final String LOGIN_WARNING = "⚠️ **メンテナンス実施中はサーバーにログインが出来ません**";
+
+    private final MessageTemplate kickMessage;
+    private final MessageTemplate notification;
+    private final MessageTemplate loginNotification;
+    private final MessageTemplate pingMotd;
+    private final MessageTemplate pingVersion;
+    private final MessageTemplate discordScheduled;
+    private final MessageTemplate discordStarted;
+    private final MessageTemplate discordEnded;
+    private final MessageTemplate discordUpdated;
+    private final MessageTemplate discordCancelled;
+
+    public MessageTemplates(ConfigManager configManager) {
+        this.kickMessage = MessageTemplate.compile(configManager.getKickMessage());
+        this.notification = MessageTemplate.compile(configManager.getNotificationMessage());
+        this.loginNotification = MessageTemplate.compile(configManager.getLoginNotificationMessage());
+        this.pingMotd = MessageTemplate.compile(configManager.getPingMotdMessage());
+        this.pingVersion = MessageTemplate.compile(configManager.getPingVersionMessage());
+
+        // カレンダーのURLが未設定の場合はリンク部分ごと省略する
+        String calendarUrl = configManager.getDiscordCalendarUrl();
+        String calendarLink = calendarUrl.isEmpty() ? ""
+                : "\n\n📅 **カレンダー:** [Google Calendar](" + calendarUrl + ")";
+
+        this.discordScheduled = MessageTemplate.compile(configManager.getDiscordMessage("scheduled",
+                "**開始時刻:** {start}\n" +
+                        "**終了予定:** {end}{details}" +
+                        calendarLink + "\n\n" +
+                        LOGIN_WARNING));
+        this.discordStarted = MessageTemplate.compile(configManager.getDiscordMessage("started",
+                "現在メンテナンス中です。\n" +
+                        "終了までしばらくお待ちください。\n\n" +
+                        LOGIN_WARNING));
+        this.discordEnded = MessageTemplate.compile(configManager.getDiscordMessage("ended",
+                "メンテナンスが完了しました。\n" +
+                        "ご協力ありがとうございました！"));
+        this.discordUpdated = MessageTemplate.compile(configManager.getDiscordMessage("updated",
+                "**変更前:**\n" +
+                        "開始: {old_start}\n" +
+                        "終了: {old_end}\n\n" +
+                        "**変更後:**\n" +
+                        "開始: {start}\n" +
+                        "終了: {end}{details}" +
+                        calendarLink));
+        this.discordCancelled = MessageTemplate.compile(configManager.getDiscordMessage("cancelled",
+                "以下のメンテナンス予定はキャンセルされました。\n\n" +
+                        "**タイトル:** {title}\n" +
+                        "**当初の予定:** {start} 〜 {end}" +
+                        calendarLink));
+    }
+
+    // ゲーム内メッセージ用のプレースホルダー値
+    public static MessageTemplate.Values gameValues(MaintenanceEvent event, String remaining) {
+        return new MessageTemplate.Values()
+                .set(Placeholder.TITLE, event.getTitle())
+                .set(Placeholder.DESCRIPTION, event.getDescription())
+                .set(Placeholder.START, formatGameDateTime(event.getStartTime()))
+                .set(Placeholder.END, formatGameDateTime(event.getEndTime()))
+                .set(Placeholder.REMAINING, remaining);
+    }
+
+    // Discord通知用のプレースホルダー値
+    public static MessageTemplate.Values discordValues(MaintenanceEvent event) {
+        return new MessageTemplate.Values()
+                .set(Placeholder.TITLE, event.getTitle())
+                .set(Placeholder.DESCRIPTION, event.getDescription())
+                .set(Placeholder.DETAILS, event.getDescription().isEmpty() ? "" : "\n\n**詳細:** " + event.getDescription())
+                .set(Placeholder.START, formatDiscordDateTime(event.getStartTime()))
+                .set(Placeholder.END, formatDiscordDateTime(event.getEndTime()));
+    }
+
+    public static String formatGameDateTime(Instant instant) {
+        return GAME_DATE_TIME.format(instant);
+    }
+
+    public static String formatDiscordDateTime(Instant instant) {
+        return DISCORD_DATE_TIME.format(instant);
+    }
+
+    public MessageTemplate getKickMessage() {
+        return kickMessage;
+    }
+
+    public MessageTemplate getNotification() {
+        return notification;
+    }
+
+    public MessageTemplate getLoginNotification() {
+        return loginNotification;
+    }
+
+    public MessageTemplate getPingMotd() {
+        return pingMotd;
+    }
+
+    public MessageTemplate getPingVersion() {
+        return pingVersion;
+    }
+
+    public MessageTemplate getDiscordScheduled() {
+        return discordScheduled;
+    }
+
+    public MessageTemplate getDiscordStarted() {
+        return discordStarted;
+    }
+
+    public MessageTemplate getDiscordEnded() {
+        return discordEnded;
+    }
+
+    public MessageTemplate getDiscordUpdated() {
+        return discordUpdated;
+    }
+
+    public MessageTemplate getDiscordCancelled() {
+        return discordCancelled;
+    }
+}
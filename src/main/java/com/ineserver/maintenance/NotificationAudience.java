@@ -0,0 +1,64 @@
+package com.ineserver.maintenance;
+
+import com.velocitypowered.api.proxy.Player;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+// メンテナンス通知を受け取るプレイヤーの集合
+// 接続・切断・権限変更時に更新し、通知のたびに全員の権限を確認しないようにする
+public class NotificationAudience {
+
+    private static final String NOTICE_OFF_PERMISSION = "maintenance.notice.off";
+    // この人数を超える場合は分割して並列に送信する
+    private static final int CHUNK_SIZE = 500;
+
+    private final Set<Player> members = ConcurrentHashMap.newKeySet();
+    private final Executor executor;
+
+    public NotificationAudience(Executor executor) {
+        this.executor = executor;
+    }
+
+    // 権限に応じて通知対象に追加または除外する
+    public void refresh(Player player) {
+        if (player.isActive() && !player.hasPermission(NOTICE_OFF_PERMISSION)) {
+            members.add(player);
+        } else {
+            members.remove(player);
+        }
+    }
+
+    public void remove(Player player) {
+        members.remove(player);
+    }
+
+    public boolean contains(Player player) {
+        return members.contains(player);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    // 人数が多い場合は先頭の分を呼び出し元で送り、残りは実行器に任せて完了を待たずに戻る
+    public void broadcast(Component message) {
+        List<Player> snapshot = new ArrayList<>(members);
+        for (int from = CHUNK_SIZE; from < snapshot.size(); from += CHUNK_SIZE) {
+            List<Player> chunk = snapshot.subList(from, Math.min(from + CHUNK_SIZE, snapshot.size()));
+            try {
+                executor.execute(() -> Audience.audience(chunk).sendMessage(message));
+            } catch (RejectedExecutionException e) {
+                // 停止中は呼び出し元で送信する
+                Audience.audience(chunk).sendMessage(message);
+            }
+        }
+        Audience.audience(snapshot.subList(0, Math.min(CHUNK_SIZE, snapshot.size()))).sendMessage(message);
+    }
+}
@@ -0,0 +1,201 @@
+package com.ineserver.maintenance;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// 設定された全ての通知先へ同時に通知を配信する
+// 通知の受け付け（MaintenanceNotifier.prepare）は呼び出し元のスレッドで行い、配信のみを非同期に行う
+// 通知先ごとに専用のレーンを持ち、同じ通知先への通知は発生順に、異なる通知先へは並行して送る
+// 遅い通知先があっても他の通知先や呼び出し元は待たされない
+public class NotificationDispatcher implements MaintenanceNotifier {
+
+    private final Executor ioExecutor;
+    private final Logger logger;
+    private final List<Sink> sinks = new ArrayList<>();
+
+    public NotificationDispatcher(Executor ioExecutor, Logger logger) {
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+    }
+
+    public void addNotifier(MaintenanceNotifier notifier) {
+        sinks.add(new Sink(notifier));
+        logger.info("Registered maintenance notifier: " + notifier.getName());
+    }
+
+    public List<Sink> getSinks() {
+        return List.copyOf(sinks);
+    }
+
+    @Override
+    public String getName() {
+        return "dispatcher";
+    }
+
+    @Override
+    public void sendMaintenanceScheduled(MaintenanceEvent event) {
+        dispatch(notifier -> notifier.sendMaintenanceScheduled(event));
+    }
+
+    @Override
+    public void sendMaintenanceStarted(MaintenanceEvent event) {
+        dispatch(notifier -> notifier.sendMaintenanceStarted(event));
+    }
+
+    @Override
+    public void sendMaintenanceEnded(MaintenanceEvent event) {
+        dispatch(notifier -> notifier.sendMaintenanceEnded(event));
+    }
+
+    @Override
+    public void sendMaintenanceUpdated(MaintenanceEvent oldEvent, MaintenanceEvent newEvent) {
+        dispatch(notifier -> notifier.sendMaintenanceUpdated(oldEvent, newEvent));
+    }
+
+    @Override
+    public void sendMaintenanceCancelled(MaintenanceEvent event) {
+        dispatch(notifier -> notifier.sendMaintenanceCancelled(event));
+    }
+
+    private void dispatch(Consumer<MaintenanceNotifier> call) {
+        for (Sink sink : sinks) {
+            sink.accept(call);
+        }
+    }
+
+    // 各レーンの処理が終わるのを待ってから、通知先ごとの停止処理を残り時間内で行う
+    @Override
+    public void shutdown(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Sink sink : sinks) {
+            while (sink.getPendingCount() > 0 && System.nanoTime() < deadline) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        for (Sink sink : sinks) {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            sink.notifier.shutdown(remaining, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 1つの通知先と、その通知を順番に処理するレーン
+    public final class Sink {
+        private final MaintenanceNotifier notifier;
+        private final Queue<Runnable> lane = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Sink(MaintenanceNotifier notifier) {
+            this.notifier = notifier;
+        }
+
+        private void accept(Consumer<MaintenanceNotifier> call) {
+            long startedAt = System.nanoTime();
+            Runnable delivery;
+            try {
+                delivery = notifier.prepare(call);
+            } catch (RuntimeException e) {
+                failures.increment();
+                record(System.nanoTime() - startedAt);
+                logger.error("Notifier " + notifier.getName() + " failed", e);
+                return;
+            }
+
+            if (delivery != null) {
+                submit(delivery);
+            } else {
+                // 呼び出し元のスレッドで完了した通知
+                record(System.nanoTime() - startedAt);
+            }
+        }
+
+        private void submit(Runnable task) {
+            lane.add(task);
+            startIfIdle();
+        }
+
+        private void startIfIdle() {
+            if (!lane.isEmpty() && running.compareAndSet(false, true)) {
+                try {
+                    ioExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    running.set(false);
+                    logger.warn("Notifier " + notifier.getName() + " could not be scheduled (shutting down)");
+                }
+            }
+        }
+
+        private void drain() {
+            Runnable task;
+            while ((task = lane.poll()) != null) {
+                long startedAt = System.nanoTime();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    failures.increment();
+                    logger.error("Notifier " + notifier.getName() + " failed", e);
+                } finally {
+                    record(System.nanoTime() - startedAt);
+                }
+            }
+            running.set(false);
+            // 終了直前に積まれた通知を取りこぼさない
+            startIfIdle();
+        }
+
+        private void record(long elapsed) {
+            calls.increment();
+            totalNanos.add(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+
+        public String getName() {
+            return notifier.getName();
+        }
+
+        public MaintenanceNotifier getNotifier() {
+            return notifier;
+        }
+
+        public int getPendingCount() {
+            return lane.size() + (running.get() ? 1 : 0);
+        }
+
+        public long getCallCount() {
+            return calls.sum();
+        }
+
+        public long getFailureCount() {
+            return failures.sum();
+        }
+
+        public double getAverageMillis() {
+            long count = calls.sum();
+            return count == 0 ? 0.0 : totalNanos.sum() / (double) count / 1_000_000.0;
+        }
+
+        public long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+    }
+}
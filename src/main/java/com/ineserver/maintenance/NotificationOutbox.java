@@ -0,0 +1,243 @@
+package com.ineserver.maintenance;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 送信前の通知を永続化する追記型の送信箱（JSON Lines形式）
+// 通知ごとに「イベントID:種類:版」の冪等キーを付け、送信完了（ack）まで記録を残す
+// 版は送信箱全体で単調に増える番号で、イベントごとの直前の通知と種類か内容が異なる場合のみ進める
+// （内容を戻す変更やキャンセル後の再登録も新しい版になり、直前と同じ通知は二重に送らない）
+// 起動時に未送信の通知を再送する
+public class NotificationOutbox {
+
+    // 重複判定のために保持する送信済みキーと、イベントごとの最新の版の数
+    private static final int MAX_ACKNOWLEDGED_KEYS = 1000;
+    // この件数のackが溜まったらファイルを圧縮する
+    private static final int COMPACT_THRESHOLD = 100;
+
+    private final Path file;
+    private final Logger logger;
+
+    private final Map<String, JsonObject> pending = new LinkedHashMap<>();
+    private final Set<String> acknowledged = new LinkedHashSet<>();
+    // イベントIDごとの最新の版（古いものから破棄する）
+    private final Map<String, Revision> revisions = new LinkedHashMap<>();
+    private long lastRevision;
+    private int acknowledgementsSinceCompaction;
+
+    public NotificationOutbox(Path dataDirectory, String fileName, Logger logger) {
+        this.file = dataDirectory.resolve(fileName);
+        this.logger = logger;
+        load();
+        compact();
+    }
+
+    // 比較用のイベント内容（区切り文字を含む値でも衝突しないようJSON配列にする）
+    private static String fingerprint(MaintenanceEvent event) {
+        JsonArray values = new JsonArray();
+        values.add(event.getTitle());
+        values.add(event.getDescription());
+        values.add(event.getStartTime().toString());
+        values.add(event.getEndTime().toString());
+        return values.toString();
+    }
+
+    // キーからイベントIDを取り出す（イベントIDに区切り文字が含まれていても末尾から分割する）
+    public static String eventIdOf(String key) {
+        int kindEnd = key.lastIndexOf(':');
+        return key.substring(0, key.lastIndexOf(':', kindEnd - 1));
+    }
+
+    public static String kindOf(String key) {
+        int kindEnd = key.lastIndexOf(':');
+        return key.substring(key.lastIndexOf(':', kindEnd - 1) + 1, kindEnd);
+    }
+
+    // 新しい版として記録し、その冪等キーを返す（イベントの直前の通知と種類・内容が同じ場合はnull）
+    public synchronized String add(MaintenanceEvent event, String kind, JsonObject embed) {
+        String fingerprint = fingerprint(event);
+        Revision latest = revisions.get(event.getId());
+        if (latest != null && kindOf(latest.key).equals(kind) && latest.fingerprint.equals(fingerprint)) {
+            return null;
+        }
+
+        String key = event.getId() + ":" + kind + ":" + (++lastRevision);
+        JsonObject record = new JsonObject();
+        record.addProperty("op", "add");
+        record.addProperty("key", key);
+        record.addProperty("fingerprint", fingerprint);
+        record.add("embed", embed);
+        append(record);
+        pending.put(key, embed);
+        rememberRevision(key, fingerprint);
+        return key;
+    }
+
+    public synchronized void acknowledge(List<String> keys) {
+        for (String key : keys) {
+            if (pending.remove(key) == null) {
+                continue;
+            }
+            JsonObject record = new JsonObject();
+            record.addProperty("op", "ack");
+            record.addProperty("key", key);
+            append(record);
+            remember(key);
+            acknowledgementsSinceCompaction++;
+        }
+
+        if (acknowledgementsSinceCompaction >= COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    // 未送信の通知（記録順）
+    public synchronized Map<String, JsonObject> getPending() {
+        return new LinkedHashMap<>(pending);
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private void remember(String key) {
+        acknowledged.add(key);
+        if (acknowledged.size() > MAX_ACKNOWLEDGED_KEYS) {
+            Iterator<String> oldest = acknowledged.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private void rememberRevision(String key, String fingerprint) {
+        // 最新の版を末尾に移す
+        String eventId = eventIdOf(key);
+        revisions.remove(eventId);
+        revisions.put(eventId, new Revision(key, fingerprint));
+        if (revisions.size() > MAX_ACKNOWLEDGED_KEYS) {
+            Iterator<String> oldest = revisions.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        // 以前の形式（内容のハッシュ）の版は数値として扱わない
+        try {
+            lastRevision = Math.max(lastRevision, Long.parseLong(key.substring(key.lastIndexOf(':') + 1)));
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    private void append(JsonObject record) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC)) {
+            writer.write(record.toString());
+            writer.newLine();
+        } catch (IOException e) {
+            logger.error("Failed to write notification outbox", e);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+                    String op = record.get("op").getAsString();
+                    if ("seq".equals(op)) {
+                        lastRevision = Math.max(lastRevision, record.get("value").getAsLong());
+                        continue;
+                    }
+                    String key = record.get("key").getAsString();
+                    if (record.has("fingerprint")) {
+                        rememberRevision(key, record.get("fingerprint").getAsString());
+                    }
+                    if ("add".equals(op)) {
+                        if (!acknowledged.contains(key)) {
+                            pending.put(key, record.getAsJsonObject("embed"));
+                        }
+                    } else if ("ack".equals(op)) {
+                        pending.remove(key);
+                        remember(key);
+                    }
+                } catch (RuntimeException e) {
+                    // 書き込み途中で停止した場合の不完全な行は無視する
+                    logger.warn("Skipping corrupt notification outbox entry");
+                }
+            }
+            logger.info("Notification outbox loaded (" + pending.size() + " pending)");
+        } catch (IOException e) {
+            logger.error("Failed to load notification outbox", e);
+        }
+    }
+
+    // 版の番号、各種類の最新の版、送信済みキーと未送信の通知だけを書き出したファイルで置き換える
+    private synchronized void compact() {
+        List<String> lines = new ArrayList<>(1 + revisions.size() + acknowledged.size() + pending.size());
+        JsonObject sequence = new JsonObject();
+        sequence.addProperty("op", "seq");
+        sequence.addProperty("value", lastRevision);
+        lines.add(sequence.toString());
+        for (Revision revision : revisions.values()) {
+            JsonObject record = new JsonObject();
+            record.addProperty("op", "rev");
+            record.addProperty("key", revision.key);
+            record.addProperty("fingerprint", revision.fingerprint);
+            lines.add(record.toString());
+        }
+        for (String key : acknowledged) {
+            JsonObject record = new JsonObject();
+            record.addProperty("op", "ack");
+            record.addProperty("key", key);
+            lines.add(record.toString());
+        }
+        for (Map.Entry<String, JsonObject> entry : pending.entrySet()) {
+            JsonObject record = new JsonObject();
+            record.addProperty("op", "add");
+            record.addProperty("key", entry.getKey());
+            record.add("embed", entry.getValue());
+            lines.add(record.toString());
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, lines, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            acknowledgementsSinceCompaction = 0;
+        } catch (IOException e) {
+            logger.error("Failed to compact notification outbox", e);
+        }
+    }
+
+    private static final class Revision {
+        private final String key;
+        private final String fingerprint;
+
+        private Revision(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
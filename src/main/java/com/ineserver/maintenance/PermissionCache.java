@@ -0,0 +1,140 @@
+package com.ineserver.maintenance;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+// メンテナンス中の接続可否判定をUUID単位でキャッシュする
+// サイズ上限を超えた場合は最も参照されていないエントリから破棄し、TTLを過ぎたエントリは再評価させる
+// 判定中に破棄（権限の変更）があった場合、その判定結果は古い可能性があるため登録しない
+public class PermissionCache {
+
+    // 破棄の記録をUUIDのハッシュで分ける数（同じ区画の別ユーザーの破棄でも登録を見送るだけで、誤りにはならない）
+    private static final int STRIPES = 64;
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<UUID, Entry> entries;
+    // 破棄のたびに進める版数と、区画ごと・全体の最後の破棄時の版数（entriesのロックで保護）
+    private long version;
+    private final long[] invalidatedAt = new long[STRIPES];
+    private long allInvalidatedAt;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder rejectedPuts = new LongAdder();
+
+    public PermissionCache(int maxSize, long ttlMillis, Clock clock) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        // アクセス順のLinkedHashMapでLRUとして扱う
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > PermissionCache.this.maxSize;
+            }
+        };
+    }
+
+    // キャッシュされた判定結果を返す（未登録または期限切れの場合はnull）
+    public Boolean get(UUID uuid) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(uuid);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return entry.allowed;
+                }
+                entries.remove(uuid);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    // 判定（LuckPermsの参照）を始める前に取得し、putに渡す
+    public long stamp() {
+        synchronized (entries) {
+            return version;
+        }
+    }
+
+    // stamp以降に該当ユーザー（または全体）が破棄されていた場合は登録せずfalseを返す
+    public boolean put(UUID uuid, boolean allowed, long stamp) {
+        Entry entry = new Entry(allowed, clock.millis() + ttlMillis);
+        synchronized (entries) {
+            if (allInvalidatedAt > stamp || invalidatedAt[stripe(uuid)] > stamp) {
+                rejectedPuts.increment();
+                return false;
+            }
+            entries.put(uuid, entry);
+            return true;
+        }
+    }
+
+    public void invalidate(UUID uuid) {
+        synchronized (entries) {
+            invalidatedAt[stripe(uuid)] = ++version;
+            if (entries.remove(uuid) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            allInvalidatedAt = ++version;
+            invalidations.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    private static int stripe(UUID uuid) {
+        return uuid.hashCode() & (STRIPES - 1);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    // 判定中に破棄されたため登録しなかった回数
+    public long getRejectedPutCount() {
+        return rejectedPuts.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private static final class Entry {
+        private final boolean allowed;
+        private final long expiresAt;
+
+        private Entry(boolean allowed, long expiresAt) {
+            this.allowed = allowed;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.ineserver.maintenance;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.LongAdder;
+
+// 接続元アドレスごとのトークンバケット
+// オブジェクトを生成しないよう固定長のプリミティブ配列で管理し、一定時間アクセスのないアドレスは再利用される
+// スロットは8個ずつのグループに分け、アドレスは自分のグループ内だけを探索する
+// グループごとにロックを分けるため、異なるグループのアドレスは互いに待たされない
+public class PingRateLimiter {
+
+    // 1アドレスあたりに探索するスロット数（グループの大きさ）
+    private static final int PROBE_LIMIT = 8;
+    private static final int MAX_STRIPES = 64;
+
+    private final int mask;
+    private final long[] keys;
+    private final double[] tokens;
+    private final long[] lastSeen;
+    // グループ番号の下位ビットで選ぶロック
+    private final Object[] stripes;
+
+    private final double ratePerMillis;
+    private final double burst;
+    private final long idleMillis;
+
+    private final LongAdder trackedAddresses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PingRateLimiter(int maxAddresses, double ratePerSecond, double burst, long idleMillis) {
+        int capacity = Integer.highestOneBit(Math.max(16, maxAddresses - 1)) << 1;
+        this.mask = capacity - 1;
+        this.keys = new long[capacity];
+        this.tokens = new double[capacity];
+        this.lastSeen = new long[capacity];
+        this.stripes = new Object[Math.min(MAX_STRIPES, capacity / PROBE_LIMIT)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+        this.ratePerMillis = ratePerSecond / 1000.0;
+        this.burst = Math.max(1.0, burst);
+        this.idleMillis = idleMillis;
+    }
+
+    // トークンを1つ消費できればtrue、上限に達している場合はfalse
+    public boolean tryAcquire(InetAddress address, long now) {
+        long key = toKey(address);
+        int group = mix(key) & mask & -PROBE_LIMIT;
+
+        synchronized (stripes[(group / PROBE_LIMIT) & (stripes.length - 1)]) {
+            int candidate = -1;
+            long candidateSeen = Long.MAX_VALUE;
+            for (int slot = group; slot < group + PROBE_LIMIT; slot++) {
+                long slotKey = keys[slot];
+
+                if (slotKey == key) {
+                    return consume(slot, now);
+                }
+
+                // 空き、または一定時間アクセスのないスロットを優先して再利用
+                long seen = slotKey == 0 ? Long.MIN_VALUE
+                        : now - lastSeen[slot] > idleMillis ? Long.MIN_VALUE + 1 : lastSeen[slot];
+                if (seen < candidateSeen) {
+                    candidate = slot;
+                    candidateSeen = seen;
+                }
+            }
+
+            if (keys[candidate] == 0) {
+                trackedAddresses.increment();
+            } else {
+                evictions.increment();
+            }
+            keys[candidate] = key;
+            tokens[candidate] = burst;
+            lastSeen[candidate] = now;
+            return consume(candidate, now);
+        }
+    }
+
+    private boolean consume(int slot, long now) {
+        double available = Math.min(burst, tokens[slot] + (now - lastSeen[slot]) * ratePerMillis);
+        lastSeen[slot] = now;
+        if (available >= 1.0) {
+            tokens[slot] = available - 1.0;
+            return true;
+        }
+        tokens[slot] = available;
+        return false;
+    }
+
+    private static long toKey(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (i < 8) {
+                high = (high << 8) | (bytes[i] & 0xFF);
+            } else {
+                low = (low << 8) | (bytes[i] & 0xFF);
+            }
+        }
+        long key = bytes.length == 4 ? high : high * 0x9E3779B97F4A7C15L ^ low;
+        // 0は空きスロットを表すため使用しない
+        return key == 0 ? 1 : key;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int getTrackedAddresses() {
+        return trackedAddresses.intValue();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -1,9 +1,12 @@
 package com.ineserver.maintenance;
 
+import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.PostOrder;
 import com.velocitypowered.api.event.ResultedEvent;
 import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
 import com.velocitypowered.api.event.connection.LoginEvent;
+import com.velocitypowered.api.event.connection.PostLoginEvent;
 import com.velocitypowered.api.event.player.ServerPostConnectEvent;
 
 public class PlayerConnectionListener {
@@ -15,18 +18,34 @@ public class PlayerConnectionListener {
     }
 
     @Subscribe(order = PostOrder.FIRST)
-    public void onLogin(LoginEvent event) {
+    public EventTask onLogin(LoginEvent event) {
         // メンテナンス中でない場合は何もしない
         if (!maintenanceManager.isMaintenanceMode()) {
-            return;
+            return null;
         }
 
-        // 許可されたユーザーでない場合はキック
-        if (!maintenanceManager.isPlayerAllowed(event.getPlayer())) {
-            event.setResult(ResultedEvent.ComponentResult.denied(
-                    maintenanceManager.getKickMessage()
-            ));
-        }
+        // LuckPermsの読み込みを待つ間もイベントスレッドをブロックしない
+        return EventTask.withContinuation(continuation -> maintenanceManager
+                .isPlayerAllowedAsync(event.getPlayer())
+                .whenComplete((allowed, throwable) -> {
+                    // 許可されたユーザーでない場合はキック
+                    if (!Boolean.TRUE.equals(allowed)) {
+                        event.setResult(ResultedEvent.ComponentResult.denied(
+                                maintenanceManager.getKickMessage()
+                        ));
+                    }
+                    continuation.resume();
+                }));
+    }
+
+    @Subscribe
+    public void onPostLogin(PostLoginEvent event) {
+        maintenanceManager.onPlayerConnected(event.getPlayer());
+    }
+
+    @Subscribe
+    public void onDisconnect(DisconnectEvent event) {
+        maintenanceManager.onPlayerDisconnected(event.getPlayer());
     }
 
     @Subscribe
@@ -0,0 +1,246 @@
+package com.ineserver.maintenance;
+
+import org.slf4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// プラグイン全体で共有する実行環境
+// タイマーは少数のプラットフォームスレッドで処理し、HTTP通信やファイル入出力などの
+// ブロッキング処理は専用の実行器（Java 21以降は仮想スレッド）に逃がしてタイマーを止めないようにする
+// 多数のプレイヤーに対する判定や送信など、ブロックしない処理の並列化には上限付きの計算用プールを使う
+public class PluginExecutors {
+
+    private static final int TIMER_THREADS = 2;
+    // 仮想スレッドが使えない環境でのI/Oスレッド数の上限
+    private static final int FALLBACK_IO_THREADS = 16;
+    // プロキシ本体のスレッドを圧迫しないよう、計算用のスレッドはCPU数の半分（最大4）までにする
+    private static final int COMPUTE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private final Logger logger;
+    private final TimerPool timers;
+    private final ExecutorService ioService;
+    private final Executor io;
+    private final ThreadPoolExecutor compute;
+    private final boolean virtualThreads;
+
+    private final AtomicInteger ioQueued = new AtomicInteger();
+    private final AtomicInteger ioRunning = new AtomicInteger();
+    private final LongAdder ioCompleted = new LongAdder();
+    private final LongAdder ioWaitNanos = new LongAdder();
+    private final LongAdder ioRunNanos = new LongAdder();
+    private final AtomicLong ioMaxRunNanos = new AtomicLong();
+
+    public PluginExecutors(Logger logger) {
+        this.logger = logger;
+        this.timers = new TimerPool(TIMER_THREADS, new NamedThreadFactory("maintenance-timer-"));
+
+        ExecutorService virtual = createVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        if (virtual != null) {
+            this.ioService = virtual;
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(FALLBACK_IO_THREADS, FALLBACK_IO_THREADS,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("maintenance-io-"));
+            pool.allowCoreThreadTimeOut(true);
+            this.ioService = pool;
+        }
+        this.io = this::executeIo;
+
+        this.compute = new ThreadPoolExecutor(COMPUTE_THREADS, COMPUTE_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("maintenance-compute-"));
+        this.compute.allowCoreThreadTimeOut(true);
+
+        logger.info("Plugin executors started (timers: " + TIMER_THREADS + " threads, io: "
+                + (virtualThreads ? "virtual threads" : FALLBACK_IO_THREADS + " platform threads")
+                + ", compute: " + COMPUTE_THREADS + " threads)");
+    }
+
+    // 仮想スレッドはJava 21以降のみ利用可能（ビルド対象は17のためリフレクションで取得する）
+    private ExecutorService createVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "maintenance-io-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // 時刻指定・定期実行用（ブロッキング処理を直接実行しないこと）
+    public ScheduledExecutorService getTimers() {
+        return timers;
+    }
+
+    // ブロッキングI/O用
+    public Executor getIo() {
+        return io;
+    }
+
+    // ブロックしない処理の並列実行用（ブロッキングI/Oには使わないこと）
+    public Executor getCompute() {
+        return compute;
+    }
+
+    public int getComputeParallelism() {
+        return COMPUTE_THREADS;
+    }
+
+    private void executeIo(Runnable task) {
+        long submittedAt = System.nanoTime();
+        ioQueued.incrementAndGet();
+        ioService.execute(() -> {
+            long startedAt = System.nanoTime();
+            ioQueued.decrementAndGet();
+            ioRunning.incrementAndGet();
+            ioWaitNanos.add(startedAt - submittedAt);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Unhandled exception in I/O task", e);
+            } finally {
+                long elapsed = System.nanoTime() - startedAt;
+                ioRunNanos.add(elapsed);
+                ioMaxRunNanos.accumulateAndGet(elapsed, Math::max);
+                ioRunning.decrementAndGet();
+                ioCompleted.increment();
+            }
+        });
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getTimerQueueDepth() {
+        return timers.getQueue().size();
+    }
+
+    public long getTimerCompletedCount() {
+        return timers.completed.sum();
+    }
+
+    public double getTimerAverageMillis() {
+        return averageMillis(timers.runNanos.sum(), timers.completed.sum());
+    }
+
+    public long getTimerMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(timers.maxRunNanos.get());
+    }
+
+    public int getIoQueueDepth() {
+        return ioQueued.get();
+    }
+
+    public int getIoRunningCount() {
+        return ioRunning.get();
+    }
+
+    public long getIoCompletedCount() {
+        return ioCompleted.sum();
+    }
+
+    public double getIoAverageWaitMillis() {
+        return averageMillis(ioWaitNanos.sum(), ioCompleted.sum());
+    }
+
+    public double getIoAverageMillis() {
+        return averageMillis(ioRunNanos.sum(), ioCompleted.sum());
+    }
+
+    public long getIoMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ioMaxRunNanos.get());
+    }
+
+    private static double averageMillis(long totalNanos, long count) {
+        return count == 0 ? 0.0 : totalNanos / (double) count / 1_000_000.0;
+    }
+
+    // タイマーを先に止めて新しいI/O処理が投入されないようにしてから、実行中のI/O処理の完了を待つ
+    public void shutdown(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        timers.shutdown();
+        awaitOrForce(timers, "timer", deadline);
+
+        compute.shutdown();
+        awaitOrForce(compute, "compute", deadline);
+
+        ioService.shutdown();
+        awaitOrForce(ioService, "I/O", deadline);
+    }
+
+    private void awaitOrForce(ExecutorService executor, String name, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            if (!executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                logger.warn("Forcing shutdown of " + name + " executor");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 実行時間を計測するタイマー用スレッドプール
+    private static final class TimerPool extends ScheduledThreadPoolExecutor {
+        private final ThreadLocal<Long> startedAt = new ThreadLocal<>();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder runNanos = new LongAdder();
+        private final AtomicLong maxRunNanos = new AtomicLong();
+
+        private TimerPool(int threads, ThreadFactory threadFactory) {
+            super(threads, threadFactory);
+            setRemoveOnCancelPolicy(true);
+            setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            startedAt.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable throwable) {
+            Long start = startedAt.get();
+            if (start != null) {
+                long elapsed = System.nanoTime() - start;
+                runNanos.add(elapsed);
+                maxRunNanos.accumulateAndGet(elapsed, Math::max);
+                completed.increment();
+                startedAt.remove();
+            }
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -4,14 +4,39 @@ import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.proxy.ProxyPingEvent;
 import com.velocitypowered.api.proxy.server.ServerPing;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.NamedTextColor;
+
+import java.net.InetAddress;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ServerPingListener {
 
     private final MaintenanceManager maintenanceManager;
+    private final Clock clock;
+    // メンテナンス状態ごとに一度だけ構築したMOTDとバージョン表記
+    private volatile CachedPing cachedPing;
+
+    // 接続元ごとのPing制限（無効の場合はnull）
+    private final PingRateLimiter rateLimiter;
+    // 制限を超えた接続元に返す応答（アイコンとMOTDを含まず、状態によらず同じものを使う）
+    private final ServerPing throttledPing = new ServerPing(new ServerPing.Version(-1, "Maintenance"),
+            new ServerPing.Players(0, 0, List.of()), Component.empty(), null);
+
+    private final LongAdder servedPings = new LongAdder();
+    private final LongAdder throttledPings = new LongAdder();
 
-    public ServerPingListener(MaintenanceManager maintenanceManager) {
+    public ServerPingListener(MaintenanceManager maintenanceManager, ConfigManager configManager) {
         this.maintenanceManager = maintenanceManager;
+        this.clock = maintenanceManager.getClock();
+        this.rateLimiter = configManager.isPingLimitEnabled()
+                ? new PingRateLimiter(
+                        configManager.getPingLimitMaxAddresses(),
+                        configManager.getPingLimitRatePerSecond(),
+                        configManager.getPingLimitBurst(),
+                        TimeUnit.SECONDS.toMillis(configManager.getPingLimitIdleSeconds()))
+                : null;
     }
 
     @Subscribe(priority = -100)
@@ -20,24 +45,73 @@ public class ServerPingListener {
             return;
         }
 
-        ServerPing originalPing = event.getPing();
-        ServerPing.Builder builder = originalPing.asBuilder();
+        // 制限を超えたアドレスには最小限の応答を返し、アイコンや状態は参照しない
+        if (rateLimiter != null) {
+            InetAddress address = event.getConnection().getRemoteAddress().getAddress();
+            if (address != null && !rateLimiter.tryAcquire(address, clock.millis())) {
+                throttledPings.increment();
+                event.setPing(throttledPing);
+                return;
+            }
+        }
+
+        long stateVersion = maintenanceManager.getStateVersion();
+
+        // 状態が変わった場合のみテンプレートを描画し直す
+        CachedPing cached = cachedPing;
+        if (cached == null || cached.stateVersion != stateVersion) {
+            cached = buildMaintenancePing(stateVersion);
+            cachedPing = cached;
+        }
+
+        // 元の応答（Forgeのmod情報や他のプラグインが設定した項目を含む）を基に、必要な項目だけを置き換える
+        event.setPing(event.getPing().asBuilder()
+                .description(cached.motd)
+                .version(cached.version)
+                .clearSamplePlayers()
+                .onlinePlayers(0)
+                .maximumPlayers(0)
+                .build());
+        servedPings.increment();
+    }
+
+    public long getServedPingCount() {
+        return servedPings.sum();
+    }
+
+    public long getThrottledPingCount() {
+        return throttledPings.sum();
+    }
+
+    public PingRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    private CachedPing buildMaintenancePing(long stateVersion) {
+        MessageTemplates templates = maintenanceManager.getTemplates();
+        MaintenanceEvent current = maintenanceManager.getCurrentMaintenance();
+        MessageTemplate.Values values = current != null
+                ? MessageTemplates.gameValues(current, "")
+                : new MessageTemplate.Values();
 
         // MOTDを変更
-        Component motd = Component.text("§c§l現在メンテナンス中です", NamedTextColor.RED)
-                .append(Component.text("\n§7しばらくお待ちください", NamedTextColor.GRAY));
-        builder.description(motd);
+        Component motd = templates.getPingMotd().renderComponent(values);
 
         // バージョン表記を変更
-        ServerPing.Version version = new ServerPing.Version(-1, "メンテナンス");
-        builder.version(version);
+        ServerPing.Version version = new ServerPing.Version(-1, templates.getPingVersion().render(values));
+
+        return new CachedPing(stateVersion, motd, version);
+    }
 
-        // プレイヤー数を0/0に設定
-        ServerPing.SamplePlayer[] samplePlayers = new ServerPing.SamplePlayer[0];
-        builder.samplePlayers(samplePlayers);
-        builder.onlinePlayers(0);
-        builder.maximumPlayers(0);
+    private static final class CachedPing {
+        private final long stateVersion;
+        private final Component motd;
+        private final ServerPing.Version version;
 
-        event.setPing(builder.build());
+        private CachedPing(long stateVersion, Component motd, ServerPing.Version version) {
+            this.stateVersion = stateVersion;
+            this.motd = motd;
+            this.version = version;
+        }
     }
 }
@@ -0,0 +1,126 @@
+package com.ineserver.maintenance;
+
+import com.velocitypowered.api.proxy.Player;
+import net.kyori.adventure.text.Component;
+import org.slf4j.Logger;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// メンテナンス開始時のプレイヤー切断を一定間隔ごとのバッチに分けて行う
+// 一斉切断によるイベントループの負荷集中と、クライアントの同時再接続を避ける
+public class StagedEvictor {
+
+    private final ScheduledExecutorService scheduler;
+    private final Clock clock;
+    private final Logger logger;
+
+    private List<Player> targets = new ArrayList<>();
+    private Component message;
+    private Runnable onComplete;
+    private int batchSize;
+    private int position;
+    private long startedAt;
+    private ScheduledFuture<?> future;
+
+    private volatile int evictedCount;
+    private volatile int totalCount;
+    private volatile long lastDrainMillis = -1;
+
+    public StagedEvictor(ScheduledExecutorService scheduler, Clock clock, Logger logger) {
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.logger = logger;
+    }
+
+    // 全員の切断が完了するとonCompleteが呼ばれる（キャンセル時は呼ばれない）
+    public synchronized void start(List<Player> players, Component message, int batchSize, long intervalMillis,
+            Runnable onComplete) {
+        cancel();
+
+        this.targets = new ArrayList<>(players);
+        this.message = message;
+        this.onComplete = onComplete;
+        this.batchSize = Math.max(1, batchSize);
+        this.position = 0;
+        this.startedAt = clock.millis();
+        this.evictedCount = 0;
+        this.totalCount = targets.size();
+
+        if (targets.isEmpty()) {
+            lastDrainMillis = 0;
+            onComplete.run();
+            return;
+        }
+
+        logger.info("Starting staged eviction of " + totalCount + " players ("
+                + this.batchSize + " players every " + intervalMillis + "ms)");
+        future = scheduler.scheduleAtFixedRate(this::evictNextBatch, 0, Math.max(1, intervalMillis),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void evictNextBatch() {
+        if (future == null) {
+            return;
+        }
+
+        int end = Math.min(position + batchSize, targets.size());
+        for (int i = position; i < end; i++) {
+            Player player = targets.get(i);
+            // 既に切断済みのプレイヤーはスキップ
+            if (player.isActive()) {
+                player.disconnect(message);
+            }
+            evictedCount++;
+        }
+        position = end;
+
+        logger.info("Staged eviction progress: " + evictedCount + "/" + totalCount);
+
+        if (position >= targets.size()) {
+            lastDrainMillis = clock.millis() - startedAt;
+            logger.info("Staged eviction completed in " + lastDrainMillis + "ms");
+            Runnable callback = onComplete;
+            finish();
+            callback.run();
+        }
+    }
+
+    // 実行中の段階切断を中止する（メンテナンスが途中で終了した場合など）
+    public synchronized void cancel() {
+        if (future != null) {
+            logger.info("Staged eviction cancelled at " + evictedCount + "/" + totalCount);
+            finish();
+        }
+    }
+
+    private void finish() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+        targets = new ArrayList<>();
+        onComplete = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return future != null;
+    }
+
+    public int getEvictedCount() {
+        return evictedCount;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    // 直近に完了した段階切断の所要時間（未実施の場合は-1）
+    public long getLastDrainMillis() {
+        return lastDrainMillis;
+    }
+}
@@ -0,0 +1,233 @@
+package com.ineserver.maintenance;
+
+import org.slf4j.Logger;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// メンテナンス通知・開始などの時刻指定タスクを1本のタイムラインで管理する
+// 全てのタイマーはキー（イベントID）ごとに追跡され、まとめてキャンセルできる
+// 専用のスレッドは持たず、共有のタイマー実行器に先頭の期限での起床を1つだけ予約し、期限を迎えたタスクをその場で実行する
+// manual() で作成した場合は起床を予約せず、advance() で仮想時計を進めた分だけタスクを実行する
+public class TimelineScheduler {
+
+    // manual() で作成した場合はnull
+    private final ScheduledExecutorService timers;
+    private final Clock clock;
+    // manual() で作成した場合のみ設定される
+    private final VirtualClock manualClock;
+    private final Logger logger;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // 発火時刻順（同時刻は登録順）に並べたタイマー
+    private final TreeSet<Timer> timeline = new TreeSet<>(
+            Comparator.comparingLong((Timer timer) -> timer.deadline).thenComparingLong(timer -> timer.sequence));
+    private final Map<String, List<Timer>> timersByKey = new HashMap<>();
+
+    private long sequence;
+    private volatile boolean running = true;
+    // 予約中の起床と、その起床時刻（更新はlock内で行う）
+    private ScheduledFuture<?> wakeup;
+    private long wakeupAt = Long.MAX_VALUE;
+
+    public TimelineScheduler(ScheduledExecutorService timers, Clock clock, Logger logger) {
+        this(timers, clock, null, logger);
+    }
+
+    private TimelineScheduler(ScheduledExecutorService timers, Clock clock, VirtualClock manualClock, Logger logger) {
+        this.timers = timers;
+        this.clock = clock;
+        this.manualClock = manualClock;
+        this.logger = logger;
+    }
+
+    // 仮想時計で駆動するスケジューラー（タスクは advance() の呼び出し元スレッドで実行される）
+    public static TimelineScheduler manual(VirtualClock clock, Logger logger) {
+        return new TimelineScheduler(null, clock, clock, logger);
+    }
+
+    // 仮想時計を進め、その間に期限を迎えたタスクを発火時刻順に実行する
+    // 各タスクの実行中、時計はそのタスクの発火時刻を指す
+    public int advance(Duration duration) {
+        VirtualClock virtualClock = manualClock;
+        if (virtualClock == null) {
+            throw new IllegalStateException("advance() is only available on a manual timeline");
+        }
+        long target = virtualClock.millis() + duration.toMillis();
+
+        int fired = 0;
+        Timer due;
+        while ((due = pollDue(target)) != null) {
+            virtualClock.advanceTo(due.deadline);
+            due.task.run();
+            fired++;
+        }
+        virtualClock.advanceTo(target);
+        return fired;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    // 指定時刻（エポックミリ秒）にタスクを実行する
+    public void schedule(String key, long deadlineMillis, Runnable task) {
+        lock.lock();
+        try {
+            Timer timer = new Timer(key, deadlineMillis, sequence++, task);
+            timeline.add(timer);
+            timersByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(timer);
+
+            // 先頭が変わった場合のみ起床を予約し直す
+            if (timeline.first() == timer) {
+                rearm();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // キーに紐づく全てのタイマーをキャンセルする
+    public int cancel(String key) {
+        lock.lock();
+        try {
+            List<Timer> timers = timersByKey.remove(key);
+            if (timers == null) {
+                return 0;
+            }
+            for (Timer timer : timers) {
+                timeline.remove(timer);
+            }
+            rearm();
+            return timers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancelAll() {
+        lock.lock();
+        try {
+            timeline.clear();
+            timersByKey.clear();
+            rearm();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return timeline.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 先頭の期限に合わせて起床を予約し直す（lock保持中に呼ぶ）
+    private void rearm() {
+        if (timers == null) {
+            return;
+        }
+        long head = running && !timeline.isEmpty() ? timeline.first().deadline : Long.MAX_VALUE;
+        if (head == wakeupAt) {
+            return;
+        }
+
+        if (wakeup != null) {
+            wakeup.cancel(false);
+            wakeup = null;
+        }
+        wakeupAt = head;
+        if (head == Long.MAX_VALUE) {
+            return;
+        }
+
+        try {
+            wakeup = timers.schedule(this::fireDue, Math.max(0, head - clock.millis()), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            wakeupAt = Long.MAX_VALUE;
+            logger.warn("Timeline wakeup was rejected (executor is shutting down)");
+        }
+    }
+
+    // 期限を迎えたタスクを発火時刻順に実行し、次の先頭に合わせて起床を予約する
+    private void fireDue() {
+        lock.lock();
+        try {
+            wakeup = null;
+            wakeupAt = Long.MAX_VALUE;
+        } finally {
+            lock.unlock();
+        }
+
+        Timer due;
+        while (running && (due = pollDue(clock.millis())) != null) {
+            try {
+                due.task.run();
+            } catch (RuntimeException e) {
+                logger.error("Timeline task for " + due.key + " failed", e);
+            }
+        }
+
+        lock.lock();
+        try {
+            rearm();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 指定時刻までに期限を迎える先頭のタイマーを取り出す
+    private Timer pollDue(long until) {
+        lock.lock();
+        try {
+            if (timeline.isEmpty() || timeline.first().deadline > until) {
+                return null;
+            }
+
+            Timer next = timeline.pollFirst();
+            List<Timer> timers = timersByKey.get(next.key);
+            if (timers != null) {
+                timers.remove(next);
+                if (timers.isEmpty()) {
+                    timersByKey.remove(next.key);
+                }
+            }
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        cancelAll();
+    }
+
+    private static final class Timer {
+        private final String key;
+        private final long deadline;
+        private final long sequence;
+        private final Runnable task;
+
+        private Timer(String key, long deadline, long sequence, Runnable task) {
+            this.key = key;
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ineserver.maintenance;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 手動で進める仮想時計
+// TimelineScheduler.manual() と組み合わせて、長期間のスケジュールを実時間を待たずに再現する
+public class VirtualClock extends Clock {
+
+    private final AtomicLong millis;
+    private final ZoneId zone;
+
+    public VirtualClock(Instant start) {
+        this(new AtomicLong(start.toEpochMilli()), ZoneId.of("Asia/Tokyo"));
+    }
+
+    private VirtualClock(AtomicLong millis, ZoneId zone) {
+        this.millis = millis;
+        this.zone = zone;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        // 同じ時刻を共有する
+        return new VirtualClock(millis, zone);
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis.get());
+    }
+
+    public void advance(Duration duration) {
+        millis.addAndGet(duration.toMillis());
+    }
+
+    // 時刻を指定した値まで進める（過去には戻らない）
+    public void advanceTo(long epochMillis) {
+        millis.accumulateAndGet(epochMillis, Math::max);
+    }
+}
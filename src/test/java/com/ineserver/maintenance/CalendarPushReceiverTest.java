@@ -0,0 +1,71 @@
+package com.ineserver.maintenance;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarPushReceiverTest {
+
+    private static final String PATH = "/calendar/push";
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final CountDownLatch fetched = new CountDownLatch(1);
+    private final HttpClient client = HttpClient.newHttpClient();
+    private CalendarPushReceiver receiver;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 受信用の実行器を呼び出し元スレッドにして、通知を届いた順に1件ずつ処理させる
+        receiver = new CalendarPushReceiver("127.0.0.1", 0, PATH, Runnable::run, Fakes.LOGGER);
+        receiver.addChannel("channel-1", "secret");
+        receiver.start(() -> {
+            fetches.incrementAndGet();
+            fetched.countDown();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiver.stop();
+    }
+
+    @Test
+    void fetchesOnlyOnChangesFromKnownChannels() throws Exception {
+        assertEquals(200, post("channel-1", "secret", "sync"));
+
+        assertEquals(200, post("channel-1", "secret", "exists"));
+        assertTrue(fetched.await(5, TimeUnit.SECONDS), "change notification did not trigger a fetch");
+
+        assertEquals(403, post("channel-1", "wrong", "exists"));
+        assertEquals(403, post("channel-2", "secret", "exists"));
+
+        // 確認用の通知と拒否した通知では取得しない
+        assertEquals(1, fetches.get());
+        assertEquals(1, receiver.getReceivedCount());
+        assertEquals(2, receiver.getRejectedCount());
+    }
+
+    private int post(String channelId, String token, String state) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://127.0.0.1:" + receiver.getPort() + PATH))
+                .header("X-Goog-Channel-ID", channelId)
+                .header("X-Goog-Channel-Token", token)
+                .header("X-Goog-Resource-State", state)
+                .header("X-Goog-Resource-ID", "resource-1")
+                .header("X-Goog-Message-Number", "1")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,90 @@
+package com.ineserver.maintenance;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+// テスト用の簡易な偽実装（Velocityのインターフェースは必要なメソッドだけを応答させる）
+final class Fakes {
+
+    static final Logger LOGGER = NOPLogger.NOP_LOGGER;
+
+    private Fakes() {
+    }
+
+    // answersにないメソッドは型の既定値（null / false / 0）を返す
+    @SuppressWarnings("unchecked")
+    static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    break;
+            }
+            Function<Object[], Object> answer = answers.get(method.getName());
+            return answer != null ? answer.apply(args) : defaultValue(method);
+        });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == Optional.class) {
+            return Optional.empty();
+        }
+        return null;
+    }
+
+    static ProxyServer server(Collection<Player> players) {
+        return of(ProxyServer.class, Map.of(
+                "getAllPlayers", args -> players,
+                "getPlayerCount", args -> players.size()));
+    }
+
+    // 受け取ったメッセージごとにonMessageを呼ぶオンラインのプレイヤー
+    static Player player(String name, Runnable onMessage) {
+        UUID uuid = UUID.nameUUIDFromBytes(name.getBytes());
+        return of(Player.class, Map.of(
+                "getUsername", args -> name,
+                "getUniqueId", args -> uuid,
+                "isActive", args -> true,
+                "sendMessage", args -> {
+                    onMessage.run();
+                    return null;
+                }));
+    }
+
+    // テスト用の設定ファイルを書き出して読み込む
+    static ConfigManager config(Path dataDirectory, List<String> lines) throws IOException {
+        Files.write(dataDirectory.resolve("config.yml"), lines);
+        ConfigManager configManager = new ConfigManager(dataDirectory, LOGGER);
+        configManager.loadConfig();
+        return configManager;
+    }
+}
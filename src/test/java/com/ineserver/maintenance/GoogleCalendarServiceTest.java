@@ -0,0 +1,104 @@
+package com.ineserver.maintenance;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GoogleCalendarServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T00:00:00Z");
+    private static final String ETAG = "\"etag-1\"";
+
+    @TempDir
+    Path dataDirectory;
+
+    private final AtomicInteger notModified = new AtomicInteger();
+    private PluginExecutors executors;
+    private MaintenanceManager manager;
+    private GoogleCalendarService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ConfigManager configManager = Fakes.config(dataDirectory, List.of(
+                "google-calendar:",
+                "  enabled: true",
+                "  api-key: test-key"));
+
+        // 期間（30日）のすぐ外に開始するイベントを写しに持った状態から始める
+        Instant start = NOW.plus(Duration.ofDays(30)).plus(Duration.ofHours(1));
+        Files.writeString(dataDirectory.resolve("calendar-sync.json"), "{\"calendarId\":\"primary\","
+                + "\"syncToken\":\"token-1\",\"events\":[{\"id\":\"upcoming\",\"title\":\"Maintenance\","
+                + "\"description\":\"\",\"start\":\"" + start + "\",\"end\":\"" + start.plus(Duration.ofHours(2))
+                + "\"}]}");
+
+        executors = new PluginExecutors(Fakes.LOGGER);
+        manager = new MaintenanceManager(Fakes.server(List.of()), configManager, new MessageTemplates(configManager),
+                new LogNotifier(Fakes.LOGGER), Fakes.LOGGER, new MaintenanceStateManager(dataDirectory, Fakes.LOGGER),
+                executors, TimelineScheduler.manual(new VirtualClock(NOW), Fakes.LOGGER));
+        service = new GoogleCalendarService(configManager, manager, executors, dataDirectory, Fakes.LOGGER);
+        service.initialize(new ConditionalTransport());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        manager.shutdown();
+        executors.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void notModifiedPollStillForwardsEventsEnteringTheWindow() {
+        GoogleCalendarService.Source source = service.getSources().get(0);
+
+        assertTrue(source.fetch());
+        assertTrue(manager.getAllScheduledMaintenances().isEmpty());
+
+        // 変更のないまま、イベントが期間内に入る
+        manager.getTimeline().advance(Duration.ofHours(2));
+        assertTrue(source.fetch());
+
+        assertEquals(1, notModified.get());
+        List<MaintenanceEvent> scheduled = manager.getAllScheduledMaintenances();
+        assertEquals(1, scheduled.size());
+        assertEquals("upcoming", scheduled.get(0).getId());
+    }
+
+    // 前回のETagが送られてきた場合は304、それ以外は変更なしの差分を返す
+    private final class ConditionalTransport extends MockHttpTransport {
+
+        @Override
+        public LowLevelHttpRequest buildRequest(String method, String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() {
+                    if (ETAG.equals(getFirstHeaderValue("If-None-Match"))) {
+                        notModified.incrementAndGet();
+                        return new MockLowLevelHttpResponse().setStatusCode(304);
+                    }
+                    return new MockLowLevelHttpResponse()
+                            .setStatusCode(200)
+                            .setContentType("application/json")
+                            .addHeader("ETag", ETAG)
+                            .setContent("{\"etag\":\"\\\"etag-1\\\"\",\"nextSyncToken\":\"token-1\",\"items\":[]}");
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.ineserver.maintenance;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IcsParserTest {
+
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+
+    private final IcsParser parser = new IcsParser(TOKYO);
+
+    @Test
+    void joinsFoldedLines() throws IOException {
+        List<MaintenanceEvent> events = parse(
+                "BEGIN:VEVENT",
+                "UID:folded",
+                "SUMMARY:Server",
+                "  maintenance",
+                "DESCRIPTION:first line\\nsecond",
+                "\t line",
+                "DTSTART:20260301T010000Z",
+                "DTEND:20260301T030000Z",
+                "END:VEVENT");
+
+        assertEquals(1, events.size());
+        assertEquals("Server maintenance", events.get(0).getTitle());
+        assertEquals("first line\nsecond line", events.get(0).getDescription());
+    }
+
+    @Test
+    void allDayEventsStartAtMidnightInTheDefaultZone() throws IOException {
+        List<MaintenanceEvent> events = parse(
+                "BEGIN:VEVENT",
+                "UID:all-day",
+                "DTSTART;VALUE=DATE:20260301",
+                "DTEND;VALUE=DATE:20260303",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:all-day-open",
+                "DTSTART;VALUE=DATE:20260310",
+                "END:VEVENT");
+
+        assertEquals(Instant.parse("2026-02-28T15:00:00Z"), events.get(0).getStartTime());
+        assertEquals(Instant.parse("2026-03-02T15:00:00Z"), events.get(0).getEndTime());
+        // 終了のない終日イベントは1日間
+        assertEquals(Duration.ofDays(1), Duration.between(events.get(1).getStartTime(), events.get(1).getEndTime()));
+    }
+
+    @Test
+    void distinguishesTzidFromUtc() throws IOException {
+        List<MaintenanceEvent> events = parse(
+                "BEGIN:VEVENT",
+                "UID:utc",
+                "DTSTART:20260301T120000Z",
+                "DTEND:20260301T130000Z",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:new-york",
+                "DTSTART;TZID=America/New_York:20260301T120000",
+                "DTEND;TZID=\"America/New_York\":20260301T130000",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:floating",
+                "DTSTART:20260301T120000",
+                "DTEND:20260301T130000",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:unknown-zone",
+                "DTSTART;TZID=Tokyo Standard Time:20260301T120000",
+                "DTEND;TZID=Tokyo Standard Time:20260301T130000",
+                "END:VEVENT");
+
+        assertEquals(Instant.parse("2026-03-01T12:00:00Z"), events.get(0).getStartTime());
+        assertEquals(Instant.parse("2026-03-01T17:00:00Z"), events.get(1).getStartTime());
+        assertEquals(Instant.parse("2026-03-01T18:00:00Z"), events.get(1).getEndTime());
+        // TZIDのない日時と、解釈できないTZIDは既定のタイムゾーン
+        assertEquals(Instant.parse("2026-03-01T03:00:00Z"), events.get(2).getStartTime());
+        assertEquals(Instant.parse("2026-03-01T03:00:00Z"), events.get(3).getStartTime());
+    }
+
+    @Test
+    void durationInWeeks() throws IOException {
+        List<MaintenanceEvent> events = parse(
+                "BEGIN:VEVENT",
+                "UID:weeks",
+                "DTSTART:20260301T000000Z",
+                "DURATION:P2W",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:hours",
+                "DTSTART:20260301T000000Z",
+                "DURATION:PT1H30M",
+                "END:VEVENT");
+
+        assertEquals(Instant.parse("2026-03-15T00:00:00Z"), events.get(0).getEndTime());
+        assertEquals(Instant.parse("2026-03-01T01:30:00Z"), events.get(1).getEndTime());
+    }
+
+    // VALARM内のDESCRIPTIONやDURATIONでイベントの値を上書きしない
+    @Test
+    void ignoresAlarmNestedInEvent() throws IOException {
+        List<MaintenanceEvent> events = parse(
+                "BEGIN:VEVENT",
+                "UID:with-alarm",
+                "SUMMARY:Maintenance",
+                "DTSTART:20260301T010000Z",
+                "BEGIN:VALARM",
+                "ACTION:DISPLAY",
+                "DESCRIPTION:Reminder",
+                "TRIGGER:-PT15M",
+                "DURATION:PT5M",
+                "END:VALARM",
+                "DESCRIPTION:Planned",
+                "DTEND:20260301T030000Z",
+                "END:VEVENT");
+
+        assertEquals(1, events.size());
+        assertEquals("Planned", events.get(0).getDescription());
+        assertEquals(Instant.parse("2026-03-01T03:00:00Z"), events.get(0).getEndTime());
+    }
+
+    @Test
+    void skipsCancelledAndInvalidEvents() throws IOException {
+        List<MaintenanceEvent> events = parse(
+                "BEGIN:VEVENT",
+                "UID:cancelled",
+                "STATUS:CANCELLED",
+                "DTSTART:20260301T010000Z",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:invalid",
+                "DTSTART:not-a-date",
+                "END:VEVENT");
+
+        assertEquals(0, events.size());
+        assertEquals(2, parser.getEventCount());
+        assertEquals(1, parser.getCancelledCount());
+        assertEquals(1, parser.getInvalidCount());
+    }
+
+    // 数万件のイベントを含むカレンダーを、全体を文字列にせず読み込む
+    @Test
+    void parsesLargeGeneratedFeed() throws IOException {
+        int count = 50_000;
+        Instant base = Instant.parse("2026-03-01T00:00:00Z");
+        List<MaintenanceEvent> events = new ArrayList<>();
+        parser.parse(new GeneratedFeed(count), events::add);
+
+        assertEquals(count, events.size());
+        assertEquals(count, parser.getEventCount());
+        assertEquals(0, parser.getInvalidCount());
+        MaintenanceEvent last = events.get(count - 1);
+        assertEquals("event-" + (count - 1), last.getId());
+        assertEquals(base.plus(Duration.ofHours(count - 1)), last.getStartTime());
+        assertEquals(base.plus(Duration.ofHours(count - 1)).plus(Duration.ofMinutes(30)), last.getEndTime());
+    }
+
+    private List<MaintenanceEvent> parse(String... lines) throws IOException {
+        StringBuilder ics = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n");
+        for (String line : lines) {
+            ics.append(line).append("\r\n");
+        }
+        ics.append("END:VCALENDAR\r\n");
+
+        List<MaintenanceEvent> events = new ArrayList<>();
+        parser.parse(new StringReader(ics.toString()), events::add);
+        return events;
+    }
+
+    // 1時間ごとのイベントを要求された分だけ生成するReader
+    private static final class GeneratedFeed extends Reader {
+        private final int count;
+        private int next;
+        private String chunk = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n";
+        private int position;
+
+        private GeneratedFeed(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == chunk.length()) {
+                if (next > count) {
+                    return -1;
+                }
+                chunk = next < count ? event(next) : "END:VCALENDAR\r\n";
+                next++;
+                position = 0;
+            }
+            int read = Math.min(length, chunk.length() - position);
+            chunk.getChars(position, position + read, buffer, offset);
+            position += read;
+            return read;
+        }
+
+        private static String event(int index) {
+            Instant start = Instant.parse("2026-03-01T00:00:00Z").plus(Duration.ofHours(index));
+            String dtstart = start.toString().replace("-", "").replace(":", "");
+            return "BEGIN:VEVENT\r\n"
+                    + "UID:event-" + index + "\r\n"
+                    + "SUMMARY:Generated maintenance " + index + "\r\n"
+                    + "DTSTART:" + dtstart + "\r\n"
+                    + "DURATION:PT30M\r\n"
+                    + "END:VEVENT\r\n";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ineserver.maintenance;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+// MaintenanceEventStore のJMHによる計測（mvn test -Pbenchmark で実行）
+// 読み取り: カーソルが有効な場合の nextStartingAfter() と、スキップリストを毎回辿る場合（以前の実装）を比較する
+// 書き込み: 追加・更新・削除のそれぞれについて、直後の snapshot() と nextStartingAfter() までを1回として計測する
+// （スナップショットの作り直しとカーソルの破棄・再計算の費用は書き込み後の最初の読み取りで発生するため）
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaintenanceEventStoreBenchmark {
+
+    private static final Instant BASE = Instant.parse("2026-03-01T00:00:00Z");
+    private static final Instant NOW = BASE.plusSeconds(1);
+    // 既存のどのイベントよりも先に開始するイベント（追加でカーソルが差し替わり、削除でカーソルが破棄される）
+    private static final MaintenanceEvent EARLIEST = new MaintenanceEvent("earliest", "Earliest", "",
+            BASE.plus(Duration.ofMinutes(5)), BASE.plus(Duration.ofMinutes(10)));
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private MaintenanceEventStore store;
+    private ConcurrentSkipListSet<MaintenanceEvent> byStartTime;
+    private MaintenanceEvent probe;
+    // 更新で交互に書き込む、同じIDで開始時刻だけが異なる2つのイベント
+    private MaintenanceEvent updateA;
+    private MaintenanceEvent updateB;
+    private boolean updateToggle;
+
+    @Test
+    void maintenanceEventStore() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MaintenanceEventStoreBenchmark.class.getName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        store = new MaintenanceEventStore();
+        byStartTime = new ConcurrentSkipListSet<>((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        for (int i = 0; i < size; i++) {
+            MaintenanceEvent event = event("event-" + i, BASE.plus(Duration.ofMinutes(10L * (i + 1))));
+            store.put(event);
+            byStartTime.add(event);
+        }
+
+        Instant after = NOW.plusNanos(1);
+        probe = new MaintenanceEvent("", "", "", after, after);
+        if (store.nextStartingAfter(NOW) != byStartTime.first()) {
+            throw new IllegalStateException("cursor does not match the skip list");
+        }
+
+        // 一覧の中ほどのイベントを、隣のイベントを追い越さない範囲で前後させる
+        MaintenanceEvent middle = store.get("event-" + (size / 2));
+        updateA = middle;
+        updateB = event(middle.getId(), middle.getStartTime().plus(Duration.ofMinutes(1)));
+        warm();
+    }
+
+    // 書き込み前の状態（スナップショットとカーソルが作られている状態）にする
+    private void warm() {
+        store.snapshot();
+        store.nextStartingAfter(NOW);
+    }
+
+    private static MaintenanceEvent event(String id, Instant start) {
+        return new MaintenanceEvent(id, id, "", start, start.plus(Duration.ofMinutes(5)));
+    }
+
+    @Benchmark
+    public MaintenanceEvent nextStartingAfterCursor() {
+        return store.nextStartingAfter(NOW);
+    }
+
+    // 基準: 以前の実装と同じくスキップリストを毎回辿る
+    @Benchmark
+    public MaintenanceEvent nextStartingAfterSkipList() {
+        return byStartTime.ceiling(probe);
+    }
+
+    @Benchmark
+    public void insert(WithoutEarliest state, Blackhole blackhole) {
+        store.put(EARLIEST);
+        blackhole.consume(store.snapshot());
+        blackhole.consume(store.nextStartingAfter(NOW));
+    }
+
+    @Benchmark
+    public void update(Blackhole blackhole) {
+        updateToggle = !updateToggle;
+        store.put(updateToggle ? updateB : updateA);
+        blackhole.consume(store.snapshot());
+        blackhole.consume(store.nextStartingAfter(NOW));
+    }
+
+    @Benchmark
+    public void remove(WithEarliest state, Blackhole blackhole) {
+        store.remove(EARLIEST.getId());
+        blackhole.consume(store.snapshot());
+        blackhole.consume(store.nextStartingAfter(NOW));
+    }
+
+    // 追加の計測前に、追加するイベントを取り除いておく
+    // 1回ごとの準備の費用は計測に含まれないが、件数が少ない場合はJMHの呼び出し単位の誤差が相対的に大きくなる
+    @State(Scope.Thread)
+    public static class WithoutEarliest {
+        @Setup(Level.Invocation)
+        public void prepare(MaintenanceEventStoreBenchmark benchmark) {
+            benchmark.store.remove(EARLIEST.getId());
+            benchmark.warm();
+        }
+    }
+
+    // 削除の計測前に、削除するイベントを入れておく
+    @State(Scope.Thread)
+    public static class WithEarliest {
+        @Setup(Level.Invocation)
+        public void prepare(MaintenanceEventStoreBenchmark benchmark) {
+            benchmark.store.put(EARLIEST);
+            benchmark.warm();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ineserver.maintenance;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MaintenanceEventStoreTest {
+
+    private static final Instant BASE = Instant.parse("2026-03-01T00:00:00Z");
+
+    @Test
+    void nextStartingAfterFollowsTimeAndWrites() {
+        MaintenanceEventStore store = new MaintenanceEventStore();
+        MaintenanceEvent first = event("first", 10);
+        MaintenanceEvent second = event("second", 20);
+        store.put(second);
+        store.put(first);
+
+        assertSame(first, store.nextStartingAfter(BASE));
+        assertSame(first, store.nextStartingAfter(BASE.plus(Duration.ofMinutes(5))));
+        // 開始時刻ちょうどは「後」に含まない
+        assertSame(second, store.nextStartingAfter(BASE.plus(Duration.ofMinutes(10))));
+
+        // カーソルより前に割り込んだイベント
+        MaintenanceEvent inserted = event("inserted", 15);
+        store.put(inserted);
+        assertSame(inserted, store.nextStartingAfter(BASE.plus(Duration.ofMinutes(11))));
+
+        // カーソルが指すイベントの削除と日時変更
+        store.remove("inserted");
+        assertSame(second, store.nextStartingAfter(BASE.plus(Duration.ofMinutes(11))));
+        MaintenanceEvent movedSecond = event("second", 40);
+        store.put(movedSecond);
+        assertSame(movedSecond, store.nextStartingAfter(BASE.plus(Duration.ofMinutes(11))));
+
+        assertNull(store.nextStartingAfter(BASE.plus(Duration.ofMinutes(40))));
+        store.put(event("third", 50));
+        assertSame(store.get("third"), store.nextStartingAfter(BASE.plus(Duration.ofMinutes(45))));
+        // 以前の時刻に戻った問い合わせ
+        assertSame(first, store.nextStartingAfter(BASE));
+    }
+
+    private static MaintenanceEvent event(String id, long startMinutes) {
+        Instant start = BASE.plus(Duration.ofMinutes(startMinutes));
+        return new MaintenanceEvent(id, id, "", start, start.plus(Duration.ofMinutes(30)));
+    }
+}
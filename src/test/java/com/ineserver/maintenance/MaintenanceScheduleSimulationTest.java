@@ -0,0 +1,198 @@
+package com.ineserver.maintenance;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// 仮想時計で1か月分の予定変更・通知・開始/終了を再現し、発火順序を検証する
+class MaintenanceScheduleSimulationTest {
+
+    private static final Instant MONTH_START = Instant.parse("2026-03-01T00:00:00Z");
+
+    @TempDir
+    Path dataDirectory;
+
+    private final List<String> log = Collections.synchronizedList(new ArrayList<>());
+    private VirtualClock clock;
+    private PluginExecutors executors;
+    private MaintenanceManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ConfigManager configManager = Fakes.config(dataDirectory, List.of(
+                "notifications:",
+                "  notification-times-minutes:",
+                "    - 60",
+                "    - 10",
+                "  30-seconds-before: true"));
+
+        clock = new VirtualClock(MONTH_START);
+        executors = new PluginExecutors(Fakes.LOGGER);
+        manager = new MaintenanceManager(Fakes.server(List.of()), configManager, new MessageTemplates(configManager),
+                new RecordingNotifier(), Fakes.LOGGER, new MaintenanceStateManager(dataDirectory, Fakes.LOGGER),
+                executors, TimelineScheduler.manual(clock, Fakes.LOGGER));
+        manager.onPlayerConnected(Fakes.player("viewer", () -> record("notice")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+        executors.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void firesNotificationsAndTransitionsInOrderOverAMonth() {
+        MaintenanceEvent a = event("a", "2026-03-04T01:00:00Z", Duration.ofHours(2));
+        MaintenanceEvent b = event("b", "2026-03-11T01:00:00Z", Duration.ofHours(2));
+        MaintenanceEvent c = event("c", "2026-03-18T01:00:00Z", Duration.ofHours(2));
+        MaintenanceEvent d = event("d", "2026-03-25T01:00:00Z", Duration.ofHours(2));
+        MaintenanceEvent movedB = event("b", "2026-03-12T05:00:00Z", Duration.ofHours(2));
+        // 追加時点で1時間前・10分前の通知時刻を過ぎているイベント
+        MaintenanceEvent urgent = event("e", "2026-03-20T00:05:00Z", Duration.ofMinutes(30));
+
+        manager.syncGoogleCalendarEvents(List.of(a, b, c, d));
+
+        // bの日時変更とcの削除
+        advanceTo("2026-03-02T12:00:00Z");
+        manager.syncGoogleCalendarEvents(List.of(a, movedB, d));
+
+        advanceTo("2026-03-04T03:00:00Z");
+        manager.endMaintenance();
+        advanceTo("2026-03-12T07:00:00Z");
+        manager.endMaintenance();
+
+        advanceTo("2026-03-20T00:00:00Z");
+        manager.applyGoogleCalendarChanges(List.of(urgent), List.of());
+        advanceTo("2026-03-20T00:35:00Z");
+        manager.endMaintenance();
+
+        advanceTo("2026-03-25T03:00:00Z");
+        manager.endMaintenance();
+        advanceTo("2026-03-31T23:59:59Z");
+
+        assertEquals(List.of(
+                "2026-03-01T00:00:00Z scheduled a",
+                "2026-03-01T00:00:00Z scheduled b",
+                "2026-03-01T00:00:00Z scheduled c",
+                "2026-03-01T00:00:00Z scheduled d",
+                "2026-03-02T12:00:00Z cancelled c",
+                "2026-03-02T12:00:00Z updated b",
+                "2026-03-04T00:00:00Z notice",
+                "2026-03-04T00:50:00Z notice",
+                "2026-03-04T00:59:30Z notice",
+                "2026-03-04T01:00:00Z started a",
+                "2026-03-04T03:00:00Z ended a",
+                "2026-03-12T04:00:00Z notice",
+                "2026-03-12T04:50:00Z notice",
+                "2026-03-12T04:59:30Z notice",
+                "2026-03-12T05:00:00Z started b",
+                "2026-03-12T07:00:00Z ended b",
+                "2026-03-20T00:00:00Z scheduled e",
+                "2026-03-20T00:04:30Z notice",
+                "2026-03-20T00:05:00Z started e",
+                "2026-03-20T00:35:00Z ended e",
+                "2026-03-25T00:00:00Z notice",
+                "2026-03-25T00:50:00Z notice",
+                "2026-03-25T00:59:30Z notice",
+                "2026-03-25T01:00:00Z started d",
+                "2026-03-25T03:00:00Z ended d"), log);
+        assertEquals(0, manager.getTimeline().getPendingCount());
+        assertFalse(manager.isMaintenanceMode());
+    }
+
+    // 1か月に詰め込んだ多数のイベントを処理し、タイマーの処理件数を報告する
+    @Test
+    void reportsThroughputForABusyMonth() {
+        int eventCount = 500;
+        // 86分ごとに10分間のメンテナンス（約30日分）
+        List<MaintenanceEvent> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            Instant start = MONTH_START.plus(Duration.ofHours(2)).plus(Duration.ofMinutes(86L * i));
+            events.add(new MaintenanceEvent("busy-" + i, "Busy " + i, "", start, start.plus(Duration.ofMinutes(10))));
+        }
+
+        long startedAt = System.nanoTime();
+        manager.syncGoogleCalendarEvents(events);
+        int fired = 0;
+        for (MaintenanceEvent event : events) {
+            fired += manager.getTimeline().advance(Duration.between(clock.instant(), event.getEndTime()));
+            manager.endMaintenance();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        // 各イベントにつき通知3回と開始1回
+        assertEquals(eventCount * 4L, fired);
+        assertEquals(eventCount, count(" started "));
+        assertEquals(eventCount, count(" ended "));
+        assertEquals(eventCount * 3L, count(" notice"));
+        assertEquals(0, manager.getTimeline().getPendingCount());
+
+        double elapsedMillis = elapsedNanos / 1_000_000.0;
+        System.out.printf("Simulated %d events (%d timers, %d notifications) in %.1fms: %.0f timers/s%n",
+                eventCount, fired, log.size(), elapsedMillis, fired / (elapsedMillis / 1000.0));
+    }
+
+    private void advanceTo(String instant) {
+        manager.getTimeline().advance(Duration.between(clock.instant(), Instant.parse(instant)));
+    }
+
+    private long count(String fragment) {
+        synchronized (log) {
+            return log.stream().filter(entry -> entry.contains(fragment)).count();
+        }
+    }
+
+    private void record(String entry) {
+        log.add(clock.instant() + " " + entry);
+    }
+
+    private static MaintenanceEvent event(String id, String start, Duration length) {
+        Instant startTime = Instant.parse(start);
+        return new MaintenanceEvent(id, "Maintenance " + id, "", startTime, startTime.plus(length));
+    }
+
+    private final class RecordingNotifier implements MaintenanceNotifier {
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+
+        @Override
+        public void sendMaintenanceScheduled(MaintenanceEvent event) {
+            record("scheduled " + event.getId());
+        }
+
+        @Override
+        public void sendMaintenanceStarted(MaintenanceEvent event) {
+            record("started " + event.getId());
+        }
+
+        @Override
+        public void sendMaintenanceEnded(MaintenanceEvent event) {
+            record("ended " + event.getId());
+        }
+
+        @Override
+        public void sendMaintenanceUpdated(MaintenanceEvent oldEvent, MaintenanceEvent newEvent) {
+            record("updated " + newEvent.getId());
+        }
+
+        @Override
+        public void sendMaintenanceCancelled(MaintenanceEvent event) {
+            record("cancelled " + event.getId());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.ineserver.maintenance;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PermissionCacheTest {
+
+    private final PermissionCache cache = new PermissionCache(100, 60_000,
+            Clock.fixed(Instant.parse("2026-03-01T00:00:00Z"), ZoneOffset.UTC));
+    private final UUID player = UUID.nameUUIDFromBytes("player".getBytes());
+
+    @Test
+    void cachesDecisionWhenNothingChangedDuringLookup() {
+        long stamp = cache.stamp();
+
+        assertTrue(cache.put(player, true, stamp));
+        assertEquals(Boolean.TRUE, cache.get(player));
+    }
+
+    // 参照 → 権限変更による破棄 → 古い判定の登録、の順に起きた場合
+    @Test
+    void rejectsDecisionReadBeforeUserInvalidation() {
+        long stamp = cache.stamp();
+        cache.invalidate(player);
+
+        assertFalse(cache.put(player, true, stamp));
+        assertNull(cache.get(player));
+        assertEquals(1, cache.getRejectedPutCount());
+    }
+
+    @Test
+    void rejectsDecisionReadBeforeGlobalInvalidation() {
+        long stamp = cache.stamp();
+        cache.invalidateAll();
+
+        assertFalse(cache.put(player, false, stamp));
+        assertNull(cache.get(player));
+    }
+
+    @Test
+    void acceptsDecisionReadAfterInvalidation() {
+        cache.invalidate(player);
+        long stamp = cache.stamp();
+
+        assertTrue(cache.put(player, false, stamp));
+        assertEquals(Boolean.FALSE, cache.get(player));
+    }
+}
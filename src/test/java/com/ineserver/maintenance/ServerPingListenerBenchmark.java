@@ -0,0 +1,117 @@
+package com.ineserver.maintenance;
+
+import com.velocitypowered.api.event.proxy.ProxyPingEvent;
+import com.velocitypowered.api.proxy.InboundConnection;
+import com.velocitypowered.api.proxy.server.ServerPing;
+import com.velocitypowered.api.util.Favicon;
+import net.kyori.adventure.text.Component;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// メンテナンス中の onServerPing() のJMHによる計測（mvn test -Pbenchmark で実行）
+// 変更前と同じくPingのたびにテンプレートを描画して応答を組み立てる場合を基準として比較する
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerPingListenerBenchmark {
+
+    private PluginExecutors executors;
+    private MaintenanceManager manager;
+    private ServerPingListener listener;
+    private InboundConnection connection;
+    private Favicon favicon;
+
+    @Test
+    void onServerPing() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ServerPingListenerBenchmark.class.getName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        ConfigManager configManager = Fakes.config(Files.createTempDirectory("ping-benchmark"), List.of(
+                "maintenance:",
+                "  ping-limit:",
+                "    enabled: false"));
+        VirtualClock clock = new VirtualClock(Instant.parse("2026-03-01T00:00:00Z"));
+        executors = new PluginExecutors(Fakes.LOGGER);
+        manager = new MaintenanceManager(Fakes.server(List.of()), configManager,
+                new MessageTemplates(configManager), new NotificationDispatcher(Runnable::run, Fakes.LOGGER),
+                Fakes.LOGGER, new MaintenanceStateManager(Files.createTempDirectory("ping-benchmark"), Fakes.LOGGER),
+                executors, TimelineScheduler.manual(clock, Fakes.LOGGER));
+
+        // 開始済みのイベントを同期して即座にメンテナンス中にする
+        Instant now = clock.instant();
+        manager.syncGoogleCalendarEvents(List.of(new MaintenanceEvent("bench", "Benchmark", "",
+                now.minusSeconds(10), now.plus(Duration.ofHours(1)))));
+        if (!manager.isMaintenanceMode()) {
+            throw new IllegalStateException("maintenance did not start");
+        }
+
+        listener = new ServerPingListener(manager, configManager);
+        connection = Fakes.of(InboundConnection.class, Map.of(
+                "getRemoteAddress", args -> new InetSocketAddress("127.0.0.1", 25565),
+                "isActive", args -> true));
+        favicon = new Favicon("data:image/png;base64,AA==");
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.shutdown();
+        executors.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public ServerPing cached() {
+        ProxyPingEvent event = newEvent();
+        listener.onServerPing(event);
+        return event.getPing();
+    }
+
+    // 基準: 変更前の実装と同じ処理
+    @Benchmark
+    public ServerPing rebuildEveryPing() {
+        ProxyPingEvent event = newEvent();
+        MessageTemplates templates = manager.getTemplates();
+        MessageTemplate.Values values = MessageTemplates.gameValues(manager.getCurrentMaintenance(), "");
+        event.setPing(event.getPing().asBuilder()
+                .description(templates.getPingMotd().renderComponent(values))
+                .version(new ServerPing.Version(-1, templates.getPingVersion().render(values)))
+                .clearSamplePlayers()
+                .onlinePlayers(0)
+                .maximumPlayers(0)
+                .build());
+        return event.getPing();
+    }
+
+    private ProxyPingEvent newEvent() {
+        ServerPing original = new ServerPing(new ServerPing.Version(765, "Velocity"),
+                new ServerPing.Players(10, 100, List.of()), Component.text("Proxy"), favicon);
+        return new ProxyPingEvent(connection, original);
+    }
+}